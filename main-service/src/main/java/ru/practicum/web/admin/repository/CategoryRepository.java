@@ -1,11 +1,17 @@
 package ru.practicum.web.admin.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.web.admin.entity.Category;
 
+import java.util.List;
+
 public interface CategoryRepository extends JpaRepository<Category, Long> {
 
     boolean existsByName(String name);
 
     boolean existsByNameAndIdNot(String name, Long id);
+
+    // В отличие от findAll(Pageable) не выполняет COUNT
+    List<Category> findAllBy(Pageable pageable);
 }
\ No newline at end of file
@@ -1,10 +1,14 @@
 package ru.practicum.web.admin.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import ru.practicum.web.admin.entity.Compilation;
 
+import java.util.List;
+
 public interface CompilationRepository extends JpaRepository<Compilation, Long> {
-    Page<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+    List<Compilation> findAllByPinned(Boolean pinned, Pageable pageable);
+
+    // В отличие от findAll(Pageable) не выполняет COUNT
+    List<Compilation> findAllBy(Pageable pageable);
 }
\ No newline at end of file
@@ -88,7 +88,7 @@ public class AdminCategoryServiceImpl implements AdminCategoryService {
         int page = from / size;
         Pageable pageable = PageRequest.of(page, size);
 
-        List<CategoryDto> categories = categoryRepository.findAll(pageable)
+        List<CategoryDto> categories = categoryRepository.findAllBy(pageable)
                 .stream()
                 .map(CategoryMapper::toDto)
                 .collect(Collectors.toList());
@@ -2,7 +2,6 @@ package ru.practicum.web.admin.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
@@ -59,7 +58,7 @@ public class AdminEventServiceImpl implements AdminEventService {
 
         List<EventStatus> statusEnums = parseStates(states);
 
-        Page<Event> eventPage = eventRepository.findEventsByAdminFilters(
+        List<Event> events = eventRepository.findEventsByAdminFilters(
                 users != null && !users.isEmpty() ? users : null,
                 statusEnums,
                 categories != null && !categories.isEmpty() ? categories : null,
@@ -67,8 +66,6 @@ public class AdminEventServiceImpl implements AdminEventService {
                 end,
                 pageable
         );
-
-        List<Event> events = eventPage.getContent();
         log.debug("Найдено {} событий", events.size());
 
         statsService.setViewsForEvents(events);
@@ -72,7 +72,7 @@ public class AdminUserServiceImpl implements AdminUserService {
                     .collect(Collectors.toList());
             log.debug("Запрошены пользователи с конкретными id: {}", ids);
         } else {
-            users = userRepository.findAll(pageable)
+            users = userRepository.findAllBy(pageable)
                     .stream()
                     .map(UserMapper::toDto)
                     .collect(Collectors.toList());
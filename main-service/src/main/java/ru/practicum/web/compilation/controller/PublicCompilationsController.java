@@ -37,7 +37,7 @@ public class PublicCompilationsController {
                     .map(CompilationMapper::toDto)
                     .collect(Collectors.toList());
         } else {
-            compilations = compilationRepository.findAll(pageable)
+            compilations = compilationRepository.findAllBy(pageable)
                     .stream()
                     .map(CompilationMapper::toDto)
                     .collect(Collectors.toList());
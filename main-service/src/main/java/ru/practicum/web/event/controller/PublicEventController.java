@@ -7,6 +7,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.dto.EndpointHitDto;
 import ru.practicum.statsclient.StatsClient;
+import ru.practicum.web.event.dto.EventCursorPage;
 import ru.practicum.web.event.dto.EventDto;
 import ru.practicum.web.event.dto.EventShortDto;
 import ru.practicum.web.event.service.PublicEventService;
@@ -20,6 +21,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class PublicEventController {
 
+    /**
+     * Заголовок ответа с курсором следующей страницы; отсутствует на последней странице.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final PublicEventService publicEventService;
     private final StatsClient statsClient;
 
@@ -34,12 +40,27 @@ public class PublicEventController {
             @RequestParam(required = false) String sort,
             @RequestParam(defaultValue = "0") int from,
             @RequestParam(defaultValue = "10") int size,
+            // Режим курсора: параметр cursor (пустой — первая страница) вместо from
+            @RequestParam(required = false) String cursor,
             HttpServletRequest request
     ) {
         log.info("GET /events with params: text={}, categories={}, paid={}, rangeStart={}, rangeEnd={}, " +
                         "onlyAvailable={}, sort={}, from={}, size={}",
                 text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, from, size);
 
+        if (cursor != null) {
+            EventCursorPage page = publicEventService.getEventsByCursor(
+                    text, categories, paid, rangeStart, rangeEnd,
+                    onlyAvailable, sort, cursor, size
+            );
+            sendHit(request);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getEvents());
+        }
+
         List<EventShortDto> events = publicEventService.getEvents(
                 text, categories, paid, rangeStart, rangeEnd,
                 onlyAvailable, sort, from, size
@@ -0,0 +1,18 @@
+package ru.practicum.web.event.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Страница публичного поиска событий в режиме курсора; nextCursor == null — страница последняя.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class EventCursorPage {
+    private List<EventShortDto> events;
+    private String nextCursor;
+}
@@ -2,13 +2,17 @@ package ru.practicum.web.event.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 import ru.practicum.web.admin.entity.Category;
 import ru.practicum.web.user.entity.User;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "events")
+@Table(name = "events", indexes = {
+        @Index(name = "idx_events_views", columnList = "views, id"),
+        @Index(name = "idx_events_event_date", columnList = "event_date, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -65,6 +69,8 @@ public class Event {
     @Column(name = "confirmed_requests", nullable = false)
     private Long confirmedRequests = 0L;
 
-    @Transient
+    // Обновляется только EventViewSynchronizer: значения, выставленные сущности для ответа, в UPDATE не попадают
+    @ColumnDefault("0")
+    @Column(nullable = false, updatable = false)
     private Long views = 0L;
 }
\ No newline at end of file
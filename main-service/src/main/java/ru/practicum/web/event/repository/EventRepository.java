@@ -1,6 +1,5 @@
 package ru.practicum.web.event.repository;
 
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
@@ -14,11 +13,11 @@ import java.util.List;
 import java.util.Optional;
 
 public interface EventRepository extends JpaRepository<Event, Long>,
-        JpaSpecificationExecutor<Event> {
+        JpaSpecificationExecutor<Event>, EventSearchRepository {
 
     Optional<Event> findByIdAndStatus(Long id, EventStatus status);
 
-    Page<Event> findByInitiatorId(Long initiatorId, Pageable pageable);
+    List<Event> findByInitiatorId(Long initiatorId, Pageable pageable);
 
     Optional<Event> findByIdAndInitiatorId(Long id, Long initiatorId);
 
@@ -30,7 +29,7 @@ public interface EventRepository extends JpaRepository<Event, Long>,
             "(:categories IS NULL OR e.category.id IN :categories) AND " +
             "(cast(:start AS timestamp) IS NULL OR e.eventDate >= :start) AND " +
             "(cast(:end AS timestamp) IS NULL OR e.eventDate <= :end)")
-    Page<Event> findEventsByAdminFilters(
+    List<Event> findEventsByAdminFilters(
             @Param("users") List<Long> users,
             @Param("statuses") List<EventStatus> statuses,
             @Param("categories") List<Long> categories,
@@ -47,7 +46,7 @@ public interface EventRepository extends JpaRepository<Event, Long>,
             "(:rangeStart IS NULL OR e.eventDate >= :rangeStart) AND " +
             "(:rangeEnd IS NULL OR e.eventDate <= :rangeEnd) AND " +
             "(:onlyAvailable = false OR e.participantLimit = 0 OR e.confirmedRequests < e.participantLimit)")
-    Page<Event> findPublicEventsWithFilters(
+    List<Event> findPublicEventsWithFilters(
             @Param("text") String text,
             @Param("categories") List<Long> categories,
             @Param("paid") Boolean paid,
@@ -0,0 +1,16 @@
+package ru.practicum.web.event.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+import ru.practicum.web.event.entity.Event;
+
+import java.util.List;
+
+public interface EventSearchRepository {
+
+    /**
+     * Страница событий по спецификации. В отличие от findAll(Specification, Pageable)
+     * не выполняет второй запрос COUNT: общее число событий в ответах не используется.
+     */
+    List<Event> findAllWithoutCount(Specification<Event> specification, Pageable pageable);
+}
@@ -5,6 +5,7 @@ import ru.practicum.web.event.entity.Event;
 import ru.practicum.web.event.entity.EventStatus;
 import ru.practicum.web.validation.ValidationConstants;
 
+import jakarta.persistence.criteria.Path;
 import jakarta.persistence.criteria.Predicate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -59,4 +60,23 @@ public class EventSpecification {
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * События строго после позиции (value, id) в порядке property ASC, id ASC; property == null — порядок по id.
+     * Условие key >= value дублирует keyset-условие, чтобы БД могла начать чтение индекса с позиции.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static Specification<Event> after(String property, Comparable value, long id) {
+        return (root, query, cb) -> {
+            Path<Long> idPath = root.get("id");
+            if (property == null) {
+                return cb.greaterThan(idPath, id);
+            }
+            Path<Comparable> key = root.get(property);
+            return cb.and(
+                    cb.greaterThanOrEqualTo(key, value),
+                    cb.or(cb.greaterThan(key, value), cb.greaterThan(idPath, id))
+            );
+        };
+    }
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package ru.practicum.web.event.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Запись синхронизированных просмотров в events.views пакетными UPDATE, минуя сущности.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EventViewsRepository {
+
+    // Строки с неизменившимся значением не переписываются
+    private static final String UPDATE_VIEWS = "UPDATE events SET views = ? WHERE id = ? AND views <> ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return число изменённых строк
+     */
+    public int updateViews(Map<Long, Long> views) {
+        List<Object[]> args = new ArrayList<>(views.size());
+        views.forEach((id, count) -> args.add(new Object[]{count, id, count}));
+        int updated = 0;
+        for (int rows : jdbcTemplate.batchUpdate(UPDATE_VIEWS, args)) {
+            // драйвер может вернуть SUCCESS_NO_INFO (-2) вместо числа строк
+            updated += Math.max(rows, 0);
+        }
+        return updated;
+    }
+}
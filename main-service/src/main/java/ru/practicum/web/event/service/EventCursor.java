@@ -0,0 +1,84 @@
+package ru.practicum.web.event.service;
+
+import ru.practicum.web.event.entity.Event;
+import ru.practicum.web.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Позиция keyset-пагинации публичного поиска событий: ключ сортировки и id последнего события страницы.
+ * Клиенту передаётся непрозрачной строкой base64url; следующая страница начинается строго после неё,
+ * поэтому новые события не сдвигают уже выданные страницы.
+ *
+ * Для VIEWS порядок устойчив только пока не меняется ключ: EventViewSynchronizer обновляет events.views
+ * в фоне, и событие, чьи просмотры выросли между запросами страниц, может быть пропущено или показано
+ * повторно. Этот режим — best-effort.
+ *
+ * @param sort  EVENT_DATE, VIEWS или ID (без сортировки — по id)
+ * @param value eventDate или views последнего события; null для ID
+ */
+record EventCursor(String sort, long id, Comparable<?> value) {
+
+    static final String EVENT_DATE = "EVENT_DATE";
+    static final String VIEWS = "VIEWS";
+    static final String ID = "ID";
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * Ключ сортировки keyset-пагинации для параметра sort запроса.
+     */
+    static String sortKey(String sort) {
+        return EVENT_DATE.equals(sort) || VIEWS.equals(sort) ? sort : ID;
+    }
+
+    /**
+     * Имя поля Event, по которому идёт сортировка, или null для ID.
+     */
+    static String property(String sortKey) {
+        return switch (sortKey) {
+            case EVENT_DATE -> "eventDate";
+            case VIEWS -> "views";
+            default -> null;
+        };
+    }
+
+    static EventCursor after(String sortKey, Event last) {
+        Comparable<?> value = switch (sortKey) {
+            case EVENT_DATE -> last.getEventDate();
+            case VIEWS -> last.getViews();
+            default -> null;
+        };
+        return new EventCursor(sortKey, last.getId(), value);
+    }
+
+    String encode() {
+        String raw = sort + SEPARATOR + id + SEPARATOR + (value != null ? value : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param sortKey ключ сортировки текущего запроса; курсор другой сортировки не принимается
+     */
+    static EventCursor decode(String token, String sortKey) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\" + SEPARATOR, 3);
+            if (parts.length != 3 || !parts[0].equals(sortKey)) {
+                throw new BadRequestException("Cursor does not match sort=" + sortKey);
+            }
+            long id = Long.parseLong(parts[1]);
+            Comparable<?> value = switch (sortKey) {
+                case EVENT_DATE -> LocalDateTime.parse(parts[2]);
+                case VIEWS -> Long.valueOf(parts[2]);
+                default -> null;
+            };
+            return new EventCursor(sortKey, id, value);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid cursor");
+        }
+    }
+}
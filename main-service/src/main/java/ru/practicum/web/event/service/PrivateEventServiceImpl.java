@@ -6,8 +6,6 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import ru.practicum.dto.ViewStatsDto;
-import ru.practicum.statsclient.StatsClient;
 import ru.practicum.web.admin.repository.CategoryRepository;
 import ru.practicum.web.event.dto.EventDto;
 import ru.practicum.web.event.dto.EventShortDto;
@@ -20,6 +18,7 @@ import ru.practicum.web.event.repository.EventRepository;
 import ru.practicum.web.exception.BadRequestException;
 import ru.practicum.web.exception.ConflictException;
 import ru.practicum.web.exception.NotFoundException;
+import ru.practicum.web.stats.ViewCountLoader;
 import ru.practicum.web.user.repository.UserRepository;
 import ru.practicum.web.validation.ValidationConstants;
 
@@ -27,7 +26,6 @@ import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -39,7 +37,7 @@ public class PrivateEventServiceImpl implements PrivateEventService {
     private final EventRepository eventRepository;
     private final UserRepository userRepository;
     private final CategoryRepository categoryRepository;
-    private final StatsClient statsClient;
+    private final ViewCountLoader viewCountLoader;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(ValidationConstants.DATE_TIME_FORMAT);
 
     @Override
@@ -54,7 +52,7 @@ public class PrivateEventServiceImpl implements PrivateEventService {
         int page = from / size;
         Pageable pageable = PageRequest.of(page, size);
 
-        List<Event> events = eventRepository.findByInitiatorId(userId, pageable).getContent();
+        List<Event> events = eventRepository.findByInitiatorId(userId, pageable);
         log.debug("Найдено {} событий", events.size());
 
         Map<Long, Long> viewsMap = getViewsMap(events);
@@ -245,73 +243,11 @@ public class PrivateEventServiceImpl implements PrivateEventService {
     }
 
     private Map<Long, Long> getViewsMap(List<Event> events) {
-        if (events.isEmpty()) {
-            return Map.of();
-        }
-
-        List<String> uris = events.stream()
-                .map(e -> "/events/" + e.getId())
-                .collect(Collectors.toList());
-
-        LocalDateTime start = events.stream()
-                .map(Event::getCreatedOn)
-                .filter(Objects::nonNull)
-                .min(LocalDateTime::compareTo)
-                .orElse(LocalDateTime.now().minusYears(1));
-
-        try {
-            List<ViewStatsDto> stats = statsClient.getStats(
-                    start,
-                    LocalDateTime.now(),
-                    uris,
-                    true
-            );
-
-            return stats.stream()
-                    .filter(stat -> stat.getUri() != null)
-                    .collect(Collectors.toMap(
-                            stat -> extractEventIdFromUri(stat.getUri()),
-                            ViewStatsDto::getHits,
-                            (existing, replacement) -> existing
-                    ));
-        } catch (Exception e) {
-            log.error("Ошибка получения статистики просмотров: {}", e.getMessage());
-            return Map.of();
-        }
+        // У каждого события свой интервал: просмотры считаются с даты его создания
+        return viewCountLoader.getViews(events);
     }
 
     private Long getViewsForEvent(Event event) {
-        if (event.getId() == null) {
-            return ValidationConstants.DEFAULT_VIEWS;
-        }
-
-        try {
-            LocalDateTime start = event.getCreatedOn() != null ?
-                    event.getCreatedOn() : LocalDateTime.now().minusYears(1);
-
-            String uri = "/events/" + event.getId();
-
-            List<ViewStatsDto> stats = statsClient.getStats(
-                    start,
-                    LocalDateTime.now(),
-                    List.of(uri),
-                    true
-            );
-
-            return stats.isEmpty() ? ValidationConstants.DEFAULT_VIEWS : stats.getFirst().getHits();
-        } catch (Exception e) {
-            log.error("Ошибка получения просмотров для события {}: {}", event.getId(), e.getMessage());
-            return ValidationConstants.DEFAULT_VIEWS;
-        }
-    }
-
-    private Long extractEventIdFromUri(String uri) {
-        try {
-            String[] parts = uri.split("/");
-            return Long.parseLong(parts[parts.length - 1]);
-        } catch (Exception e) {
-            log.error("Ошибка извлечения id из uri: {}", uri);
-            return null;
-        }
+        return viewCountLoader.getViews(event);
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package ru.practicum.web.event.service;
 
+import ru.practicum.web.event.dto.EventCursorPage;
 import ru.practicum.web.event.dto.EventDto;
 import ru.practicum.web.event.dto.EventShortDto;
 
@@ -21,6 +22,24 @@ public interface PublicEventService {
             int size
     );
 
+    /**
+     * Поиск событий с keyset-пагинацией: страница начинается после позиции из cursor
+     * (пустой cursor — с начала) и читается без OFFSET и подсчёта общего числа событий.
+     * Фильтры и sort должны совпадать с запросом, вернувшим cursor.
+     * С sort=VIEWS страницы не гарантируют отсутствие пропусков и повторов (см. EventCursor).
+     */
+    EventCursorPage getEventsByCursor(
+            String text,
+            List<Long> categories,
+            Boolean paid,
+            String rangeStart,
+            String rangeEnd,
+            Boolean onlyAvailable,
+            String sort,
+            String cursor,
+            int size
+    );
+
     default List<EventDto> getEvents() {
         return List.of();
     }
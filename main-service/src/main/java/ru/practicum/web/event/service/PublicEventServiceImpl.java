@@ -2,13 +2,14 @@ package ru.practicum.web.event.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
-import ru.practicum.dto.ViewStatsDto;
-import ru.practicum.statsclient.StatsClient;
+import ru.practicum.web.event.dto.EventCursorPage;
 import ru.practicum.web.event.dto.EventDto;
 import ru.practicum.web.event.dto.EventShortDto;
 import ru.practicum.web.event.entity.Event;
@@ -18,6 +19,7 @@ import ru.practicum.web.event.repository.EventRepository;
 import ru.practicum.web.event.repository.EventSpecification;
 import ru.practicum.web.exception.BadRequestException;
 import ru.practicum.web.exception.NotFoundException;
+import ru.practicum.web.stats.ViewCountLoader;
 import jakarta.transaction.Transactional;
 import ru.practicum.web.validation.ValidationConstants;
 
@@ -27,7 +29,6 @@ import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -37,7 +38,7 @@ import java.util.stream.Collectors;
 public class PublicEventServiceImpl implements PublicEventService {
 
     private final EventRepository eventRepository;
-    private final StatsClient statsClient;
+    private final ViewCountLoader viewCountLoader;
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern(ValidationConstants.DATE_TIME_FORMAT);
 
     @Override
@@ -50,12 +51,13 @@ public class PublicEventServiceImpl implements PublicEventService {
                     return new NotFoundException("Event with id=" + id + " was not found");
                 });
 
+        // Хит текущего запроса уже отправлен контроллером и учтён в просмотрах
         Long views = getViewsForEvent(event);
-        event.setViews(views + 1);
-        log.debug("Просмотров события {}: {}", id, views + 1);
+        event.setViews(views);
+        log.debug("Просмотров события {}: {}", id, views);
 
         EventDto dto = EventMapper.toDto(event);
-        dto.setViews(views + 1);
+        dto.setViews(views);
 
         return dto;
     }
@@ -84,6 +86,65 @@ public class PublicEventServiceImpl implements PublicEventService {
         int page = from / actualSize;
         Pageable pageable = PageRequest.of(page, actualSize, getSort(sort));
 
+        List<Event> events = eventRepository.findAllWithoutCount(
+                publicEventsSpecification(text, categories, paid, rangeStart, rangeEnd, onlyAvailable),
+                pageable
+        );
+        log.info("Найдено {} событий", events.size());
+
+        return toShortDtos(events, EventCursor.VIEWS.equals(sort));
+    }
+
+    @Override
+    public EventCursorPage getEventsByCursor(
+            String text,
+            List<Long> categories,
+            Boolean paid,
+            String rangeStart,
+            String rangeEnd,
+            Boolean onlyAvailable,
+            String sort,
+            String cursor,
+            int size
+    ) {
+        log.info("Публичный запрос событий по курсору: text={}, categories={}, paid={}, rangeStart={}, rangeEnd={}, " +
+                "onlyAvailable={}, sort={}, cursor={}, size={}", text, categories, paid, rangeStart, rangeEnd, onlyAvailable, sort, cursor, size);
+
+        int actualSize = size > 0 ? size : ValidationConstants.PAGE_DEFAULT_SIZE;
+        String sortKey = EventCursor.sortKey(sort);
+        String property = EventCursor.property(sortKey);
+
+        Specification<Event> specification =
+                publicEventsSpecification(text, categories, paid, rangeStart, rangeEnd, onlyAvailable);
+        if (cursor != null && !cursor.isBlank()) {
+            EventCursor position = EventCursor.decode(cursor, sortKey);
+            specification = specification.and(EventSpecification.after(property, position.value(), position.id()));
+        }
+        Sort order = property != null
+                ? Sort.by(Sort.Direction.ASC, property, "id")
+                : Sort.by(Sort.Direction.ASC, "id");
+
+        // Лишнее событие показывает, есть ли следующая страница, без запроса COUNT
+        List<Event> fetched = eventRepository.findBy(specification,
+                query -> query.sortBy(order).limit(actualSize + 1).all());
+        Slice<Event> slice = new SliceImpl<>(fetched.subList(0, Math.min(actualSize, fetched.size())),
+                PageRequest.of(0, actualSize, order), fetched.size() > actualSize);
+        log.info("Найдено {} событий, есть следующая страница: {}", slice.getNumberOfElements(), slice.hasNext());
+
+        String nextCursor = slice.hasNext()
+                ? EventCursor.after(sortKey, slice.getContent().get(slice.getNumberOfElements() - 1)).encode()
+                : null;
+        return new EventCursorPage(toShortDtos(slice.getContent(), EventCursor.VIEWS.equals(sortKey)), nextCursor);
+    }
+
+    private Specification<Event> publicEventsSpecification(
+            String text,
+            List<Long> categories,
+            Boolean paid,
+            String rangeStart,
+            String rangeEnd,
+            Boolean onlyAvailable
+    ) {
         LocalDateTime startDateTime = null;
         LocalDateTime endDateTime = null;
 
@@ -110,48 +171,38 @@ public class PublicEventServiceImpl implements PublicEventService {
             throw new BadRequestException("rangeStart must be before rangeEnd");
         }
 
-        Page<Event> eventPage = eventRepository.findAll(
-                EventSpecification.publicEvents(
-                        text,
-                        categories,
-                        paid,
-                        startDateTime,
-                        endDateTime,
-                        onlyAvailable
-                ),
-                pageable
+        return EventSpecification.publicEvents(
+                text,
+                categories,
+                paid,
+                startDateTime,
+                endDateTime,
+                onlyAvailable
         );
+    }
 
-        List<Event> events = eventPage.getContent();
-        log.info("Найдено {} событий", events.size());
-
+    /**
+     * @param persistedViews показывать events.views, по которым отсортирована страница (sort=VIEWS),
+     *                       а не просмотры, запрошенные у сервиса статистики
+     */
+    private List<EventShortDto> toShortDtos(List<Event> events, boolean persistedViews) {
         if (events.isEmpty()) {
             return new ArrayList<>();
         }
 
-        Map<Long, Long> viewsMap = getViewsMap(events);
+        Map<Long, Long> viewsMap = persistedViews ? Map.of() : getViewsMap(events);
 
-        List<EventShortDto> result = events.stream()
+        return events.stream()
                 .map(event -> {
-                    Long views = viewsMap.getOrDefault(event.getId(), ValidationConstants.DEFAULT_VIEWS);
                     EventShortDto dto = EventMapper.toShortDto(event);
-                    dto.setViews(views);
+                    if (!persistedViews) {
+                        dto.setViews(viewsMap.getOrDefault(event.getId(), ValidationConstants.DEFAULT_VIEWS));
+                    }
                     dto.setConfirmedRequests(event.getConfirmedRequests() != null ?
                             event.getConfirmedRequests() : ValidationConstants.DEFAULT_CONFIRMED_REQUESTS);
                     return dto;
                 })
                 .collect(Collectors.toList());
-
-        // Сортировка по просмотрам в Java (так как views - transient поле)
-        if ("VIEWS".equals(sort)) {
-            result.sort((e1, e2) -> {
-                if (e1.getViews() == null || e2.getViews() == null) return 0;
-                return e1.getViews().compareTo(e2.getViews());
-            });
-            log.debug("Выполнена сортировка по просмотрам");
-        }
-
-        return result;
     }
 
     private Sort getSort(String sort) {
@@ -162,115 +213,22 @@ public class PublicEventServiceImpl implements PublicEventService {
             log.debug("Сортировка по дате события");
             return Sort.by(Sort.Direction.ASC, "eventDate");
         }
+        if ("VIEWS".equals(sort)) {
+            // По events.views, которые синхронизирует EventViewSynchronizer, — их же показывает страница;
+            // id делает порядок страниц однозначным
+            log.debug("Сортировка по просмотрам");
+            return Sort.by(Sort.Direction.ASC, "views", "id");
+        }
         return Sort.unsorted();
     }
 
     private Map<Long, Long> getViewsMap(List<Event> events) {
-        if (events == null || events.isEmpty()) {
-            return Map.of();
-        }
-
-        List<String> uris = events.stream()
-                .filter(e -> e.getId() != null)
-                .map(e -> "/events/" + e.getId())
-                .collect(Collectors.toList());
-
-        if (uris.isEmpty()) {
-            return Map.of();
-        }
-
-        try {
-            List<ViewStatsDto> stats = statsClient.getStats(
-                    LocalDateTime.now().minusYears(1),
-                    LocalDateTime.now(),
-                    uris,
-                    true
-            );
-
-            if (stats == null || stats.isEmpty()) {
-                log.debug("Статистика просмотров не найдена");
-                return events.stream()
-                        .filter(e -> e.getId() != null)
-                        .collect(Collectors.toMap(
-                                Event::getId,
-                                e -> ValidationConstants.DEFAULT_VIEWS
-                        ));
-            }
-
-            Map<Long, Long> viewsMap = stats.stream()
-                    .filter(stat -> stat != null && stat.getUri() != null)
-                    .map(stat -> {
-                        Long id = extractEventIdFromUri(stat.getUri());
-                        return id != null ? Map.entry(id, stat.getHits()) : null;
-                    })
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toMap(
-                            Map.Entry::getKey,
-                            Map.Entry::getValue,
-                            (a, b) -> a
-                    ));
-
-            // Добавляем события без статистики
-            events.stream()
-                    .filter(e -> e.getId() != null && !viewsMap.containsKey(e.getId()))
-                    .forEach(e -> viewsMap.put(e.getId(), ValidationConstants.DEFAULT_VIEWS));
-
-            log.debug("Получена статистика для {} событий", viewsMap.size());
-            return viewsMap;
-
-        } catch (Exception e) {
-            log.error("Ошибка получения статистики просмотров: {}", e.getMessage());
-            return events.stream()
-                    .filter(ee -> ee.getId() != null)
-                    .collect(Collectors.toMap(
-                            Event::getId,
-                            ee -> ValidationConstants.DEFAULT_VIEWS
-                    ));
-        }
+        // У каждого события свой интервал: просмотры считаются с даты его создания
+        return viewCountLoader.getViews(events);
     }
 
     private Long getViewsForEvent(Event event) {
-        if (event == null || event.getId() == null) {
-            return ValidationConstants.DEFAULT_VIEWS;
-        }
-
-        try {
-            LocalDateTime start = event.getCreatedOn() != null ?
-                    event.getCreatedOn() : LocalDateTime.now().minusYears(1);
-
-            String uri = "/events/" + event.getId();
-
-            List<ViewStatsDto> stats = statsClient.getStats(
-                    start,
-                    LocalDateTime.now(),
-                    List.of(uri),
-                    true
-            );
-
-            if (stats == null || stats.isEmpty()) {
-                return ValidationConstants.DEFAULT_VIEWS;
-            }
-            return stats.get(0).getHits();
-        } catch (Exception e) {
-            log.error("Ошибка получения просмотров для события {}: {}", event.getId(), e.getMessage());
-            return ValidationConstants.DEFAULT_VIEWS;
-        }
-    }
-
-    private Long extractEventIdFromUri(String uri) {
-        if (uri == null) {
-            return null;
-        }
-        try {
-            String[] parts = uri.split("/");
-            if (parts.length > 0) {
-                return Long.parseLong(parts[parts.length - 1]);
-            }
-            return null;
-        } catch (Exception e) {
-            log.error("Ошибка извлечения id из uri: {}", uri);
-            return null;
-        }
+        return viewCountLoader.getViews(event);
     }
 
     private LocalDateTime parseDateTime(String dateTimeStr) {
@@ -0,0 +1,101 @@
+package ru.practicum.web.stats;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.ViewChangesDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.statsclient.StatsClient;
+import ru.practicum.web.event.repository.EventViewsRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Переносит уникальные просмотры событий за всё время из сервиса статистики в events.views,
+ * чтобы sort=VIEWS выполнялся в SQL по индексу.
+ *
+ * Раз в intervalMillis запрашиваются просмотры URI, по которым появились хиты после курсора.
+ * Хит может быть закоммичен позже хита с большим id, поэтому запрос начинается с курсора
+ * позапрошлой синхронизации: окна перекрываются на один интервал, а абсолютные значения
+ * просмотров делают повторное обновление безопасным. Курсор хранится в памяти; после
+ * перезапуска первая синхронизация переносит просмотры всех событий.
+ */
+@Slf4j
+@Component
+public class EventViewSynchronizer {
+
+    private static final String URI_PREFIX = "/events/";
+
+    private final StatsClient statsClient;
+    private final EventViewsRepository eventViewsRepository;
+    private final ViewSyncProperties properties;
+
+    private long previousCursor;
+    private long cursor;
+
+    public EventViewSynchronizer(StatsClient statsClient,
+                                 EventViewsRepository eventViewsRepository,
+                                 ViewSyncProperties properties) {
+        this.statsClient = statsClient;
+        this.eventViewsRepository = eventViewsRepository;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${app.stats.view-sync.interval-millis:60000}")
+    public synchronized void sync() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        ViewChangesDto changes;
+        try {
+            changes = statsClient.getViewChanges(previousCursor, URI_PREFIX, true);
+        } catch (Exception e) {
+            log.error("Ошибка получения изменений просмотров после хита {}: {}", previousCursor, e.getMessage());
+            return;
+        }
+
+        Map<Long, Long> views = toEventViews(changes.getStats());
+        List<Map.Entry<Long, Long>> entries = new ArrayList<>(views.entrySet());
+        int updated = 0;
+        for (int from = 0; from < entries.size(); from += properties.getBatchSize()) {
+            Map<Long, Long> batch = new HashMap<>();
+            entries.subList(from, Math.min(entries.size(), from + properties.getBatchSize()))
+                    .forEach(entry -> batch.put(entry.getKey(), entry.getValue()));
+            updated += eventViewsRepository.updateViews(batch);
+        }
+
+        if (changes.getCursor() != null) {
+            // После полного переноса перекрывать нечего: повторный запрос с 0 снова перенёс бы все события
+            previousCursor = previousCursor == 0 ? changes.getCursor() : cursor;
+            cursor = changes.getCursor();
+        }
+        log.debug("Синхронизированы просмотры: изменилось {} событий из {}, курсор {}", updated, views.size(), cursor);
+    }
+
+    /**
+     * Просмотры по id событий; хиты разных приложений по одному URI суммируются.
+     * URI вида /events/{id}/... и с нечисловым id пропускаются.
+     */
+    private Map<Long, Long> toEventViews(List<ViewStatsDto> stats) {
+        Map<Long, Long> views = new HashMap<>();
+        if (stats == null) {
+            return views;
+        }
+        for (ViewStatsDto stat : stats) {
+            if (stat.getUri() == null || stat.getHits() == null) {
+                continue;
+            }
+            if (!stat.getUri().startsWith(URI_PREFIX)) {
+                continue;
+            }
+            String id = stat.getUri().substring(URI_PREFIX.length());
+            if (!id.isEmpty() && id.length() < 19 && id.chars().allMatch(Character::isDigit)) {
+                views.merge(Long.parseLong(id), stat.getHits(), Long::sum);
+            }
+        }
+        return views;
+    }
+}
@@ -0,0 +1,199 @@
+package ru.practicum.web.stats;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.statsclient.StatsClient;
+import ru.practicum.web.event.entity.Event;
+import ru.practicum.web.validation.ValidationConstants;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Загрузчик уникальных просмотров событий, объединяющий запросы из разных потоков.
+ *
+ * Запросы, пришедшие в течение windowMillis после первого (но не больше maxBatchSize событий),
+ * выполняются одним запросом POST /stats/query: у каждого события свой интервал — с даты создания.
+ */
+@Slf4j
+@Component
+public class ViewCountLoader {
+
+    private static final String URI_PREFIX = "/events/";
+    // Ограничение сервера статистики на число интервалов в POST /stats/query
+    private static final int MAX_RANGES = 1000;
+
+    private final StatsClient statsClient;
+    private final ViewCountLoaderProperties properties;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("view-loader-timer").daemon().factory());
+    private final ExecutorService dispatcher = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("view-loader-", 0).factory());
+
+    private final Object lock = new Object();
+    private Map<Long, Pending> batch = new LinkedHashMap<>();
+
+    public ViewCountLoader(StatsClient statsClient, ViewCountLoaderProperties properties) {
+        this.statsClient = statsClient;
+        this.properties = properties;
+    }
+
+    /**
+     * Просмотры события; при ошибке сервиса статистики, отказе исполнителя или по истечении
+     * timeoutMillis — значение по умолчанию.
+     */
+    public Long getViews(Event event) {
+        try {
+            return load(event).orTimeout(properties.getTimeoutMillis(), TimeUnit.MILLISECONDS).join();
+        } catch (CompletionException e) {
+            log.error("Не удалось получить просмотры события {}: {}", event.getId(), e.getCause().toString());
+            return ValidationConstants.DEFAULT_VIEWS;
+        }
+    }
+
+    /**
+     * Просмотры всех событий с даты создания каждого, без окна ожидания и ограничения maxBatchSize:
+     * один запрос на каждые MAX_RANGES событий. Событиям, для которых просмотры получить не удалось,
+     * соответствует значение по умолчанию.
+     */
+    public Map<Long, Long> getViews(Collection<Event> events) {
+        Map<Long, LocalDateTime> starts = new LinkedHashMap<>();
+        events.stream()
+                .filter(Objects::nonNull)
+                .filter(event -> event.getId() != null)
+                .forEach(event -> starts.putIfAbsent(event.getId(), viewsSince(event)));
+        return starts.isEmpty() ? Map.of() : fetchSince(starts);
+    }
+
+    /**
+     * Начало интервала просмотров события — дата его создания. Хиты по URI события бывают
+     * и раньше: например, запросы GET /events/{id} с ответом 404 до его создания.
+     */
+    public static LocalDateTime viewsSince(Event event) {
+        return event.getCreatedOn() != null ? event.getCreatedOn() : LocalDateTime.now().minusYears(1);
+    }
+
+    /**
+     * Ставит событие в текущую пачку. Будущее завершается значением по умолчанию при ошибке
+     * сервиса статистики и исключением RejectedExecutionException после остановки загрузчика.
+     */
+    public CompletableFuture<Long> load(Event event) {
+        if (event == null || event.getId() == null) {
+            return CompletableFuture.completedFuture(ValidationConstants.DEFAULT_VIEWS);
+        }
+        if (!properties.isEnabled()) {
+            Pending pending = new Pending(viewsSince(event), new CompletableFuture<>());
+            dispatch(Map.of(event.getId(), pending));
+            return pending.future();
+        }
+
+        Map<Long, Pending> full = null;
+        CompletableFuture<Long> future;
+        synchronized (lock) {
+            Map<Long, Pending> current = batch;
+            if (current.isEmpty()) {
+                try {
+                    timer.schedule(() -> flush(current), properties.getWindowMillis(), TimeUnit.MILLISECONDS);
+                } catch (RejectedExecutionException e) {
+                    // Таймер остановлен: пачка отправляется сразу
+                    full = current;
+                    batch = new LinkedHashMap<>();
+                }
+            }
+            future = current.computeIfAbsent(event.getId(),
+                    id -> new Pending(viewsSince(event), new CompletableFuture<>())).future();
+            if (full == null && current.size() >= properties.getMaxBatchSize()) {
+                full = current;
+                batch = new LinkedHashMap<>();
+            }
+        }
+        if (full != null) {
+            submit(full);
+        }
+        return future;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        timer.shutdown();
+        dispatcher.shutdown();
+    }
+
+    private void flush(Map<Long, Pending> expected) {
+        synchronized (lock) {
+            // Пачка уже отправлена по заполнению
+            if (batch != expected) {
+                return;
+            }
+            batch = new LinkedHashMap<>();
+        }
+        submit(expected);
+    }
+
+    /**
+     * Отправляет пачку в исполнитель; если он уже остановлен, ожидающие будущие завершаются ошибкой.
+     */
+    private void submit(Map<Long, Pending> events) {
+        try {
+            dispatcher.execute(() -> dispatch(events));
+        } catch (RejectedExecutionException e) {
+            events.values().forEach(pending -> pending.future().completeExceptionally(e));
+        }
+    }
+
+    private void dispatch(Map<Long, Pending> events) {
+        Map<Long, LocalDateTime> starts = new LinkedHashMap<>();
+        events.forEach((id, pending) -> starts.put(id, pending.since()));
+        Map<Long, Long> views = fetchSince(starts);
+        events.forEach((id, pending) -> pending.future().complete(views.get(id)));
+    }
+
+    /**
+     * Просмотры каждого события с его даты начала через POST /stats/query, не больше MAX_RANGES
+     * интервалов в запросе.
+     */
+    private Map<Long, Long> fetchSince(Map<Long, LocalDateTime> starts) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> ids = new ArrayList<>(starts.keySet());
+        Map<Long, Long> result = new HashMap<>();
+        try {
+            for (int from = 0; from < ids.size(); from += MAX_RANGES) {
+                List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_RANGES));
+                List<UriRangeDto> ranges = chunk.stream()
+                        .map(id -> new UriRangeDto(URI_PREFIX + id, starts.get(id), now))
+                        .toList();
+                List<RangeStatsDto> stats = statsClient.queryStats(ranges, true);
+                for (int i = 0; i < chunk.size() && i < stats.size(); i++) {
+                    Long hits = stats.get(i).getHits();
+                    result.put(chunk.get(i), hits != null ? hits : ValidationConstants.DEFAULT_VIEWS);
+                }
+            }
+        } catch (Exception e) {
+            log.error("Ошибка получения просмотров для {} событий: {}", ids.size(), e.getMessage());
+        }
+        log.debug("Запрошены просмотры {} событий с даты создания", ids.size());
+        for (Long id : ids) {
+            result.putIfAbsent(id, ValidationConstants.DEFAULT_VIEWS);
+        }
+        return result;
+    }
+
+    private record Pending(LocalDateTime since, CompletableFuture<Long> future) {
+    }
+}
@@ -0,0 +1,36 @@
+package ru.practicum.web.stats;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки объединения запросов просмотров отдельных событий в один POST /stats/query.
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.stats.view-loader")
+public class ViewCountLoaderProperties {
+
+    /**
+     * Собирать запросы просмотров в пачки. Если выключено, каждое событие запрашивается отдельно.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Сколько ждать другие запросы после первого в пачке (мс).
+     */
+    private Long windowMillis = 2L;
+
+    /**
+     * Пачка отправляется сразу, как только в ней набирается столько событий.
+     */
+    private Integer maxBatchSize = 64;
+
+    /**
+     * Сколько ждать просмотры события (мс); по истечении возвращается значение по умолчанию.
+     */
+    private Long timeoutMillis = 10_000L;
+}
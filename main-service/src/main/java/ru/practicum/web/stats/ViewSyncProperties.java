@@ -0,0 +1,31 @@
+package ru.practicum.web.stats;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Настройки фоновой синхронизации events.views с сервисом статистики (GET /stats/changes).
+ */
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "app.stats.view-sync")
+public class ViewSyncProperties {
+
+    /**
+     * Синхронизировать просмотры. Если выключено, sort=VIEWS сортирует по последним сохранённым значениям.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Пауза между запросами изменений (мс).
+     */
+    private Long intervalMillis = 60_000L;
+
+    /**
+     * Сколько событий обновляется одним пакетом UPDATE.
+     */
+    private Integer batchSize = 500;
+}
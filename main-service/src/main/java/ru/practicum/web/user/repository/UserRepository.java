@@ -13,4 +13,7 @@ public interface UserRepository extends JpaRepository<User, Long> {
     boolean existsById(Long id);
 
     List<User> findByIdIn(List<Long> ids, Pageable pageable);
+
+    // В отличие от findAll(Pageable) не выполняет COUNT
+    List<User> findAllBy(Pageable pageable);
 }
\ No newline at end of file
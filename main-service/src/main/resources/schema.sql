@@ -29,9 +29,16 @@ CREATE TABLE events
     status             TEXT CHECK (status IN ('PENDING', 'PUBLISHED', 'CANCELED')),
     created_on         TIMESTAMP,
     published_on       TIMESTAMP,
-    confirmed_requests BIGINT DEFAULT 0
+    confirmed_requests BIGINT DEFAULT 0,
+    views              BIGINT NOT NULL DEFAULT 0
 );
 
+-- sort=VIEWS: просмотры синхронизируются с сервисом статистики
+CREATE INDEX idx_events_views ON events (views, id);
+
+-- Keyset-пагинация публичного поиска по (event_date, id)
+CREATE INDEX idx_events_event_date ON events (event_date, id);
+
 -- Таблица подборок (compilations)
 CREATE TABLE compilations
 (
@@ -0,0 +1,225 @@
+package ru.practicum.statsclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.dto.ViewChangesDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.statsclient.autoconfigure.StatsClientProperties;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Декоратор StatsClient, отправляющий хиты в фоне.
+ *
+ * hit/hitAll только ставят хиты в ограниченную неблокирующую очередь и сразу возвращают управление.
+ * Отдельный виртуальный поток забирает их пачками и отправляет через POST /hits с повторными попытками.
+ * Запросы статистики передаются делегату без изменений.
+ */
+public class AsyncStatsClient implements StatsClient, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncStatsClient.class);
+
+    private final StatsClient delegate;
+    private final StatsClientProperties.Async props;
+    private final HitSpool spool;
+
+    // ConcurrentLinkedQueue не ограничена, размер контролируется счётчиком через CAS
+    private final Queue<EndpointHitDto> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final Counter enqueuedCounter;
+    private final Counter sentCounter;
+    private final Counter droppedCounter;
+    private final Counter retriedCounter;
+
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public AsyncStatsClient(StatsClient delegate, StatsClientProperties.Async props, MeterRegistry meterRegistry) {
+        this(delegate, props, null, meterRegistry);
+    }
+
+    /**
+     * @param spool журнал для хитов, не поместившихся в очередь при OverflowPolicy.SPOOL, или null
+     */
+    public AsyncStatsClient(StatsClient delegate, StatsClientProperties.Async props, HitSpool spool,
+                            MeterRegistry meterRegistry) {
+        Assert.notNull(delegate, "delegate must not be null");
+        Assert.notNull(props, "props must not be null");
+        this.delegate = delegate;
+        this.props = props;
+        this.spool = spool;
+
+        Gauge.builder("stats.client.hits.queue.size", size, AtomicInteger::get)
+                .description("Хиты, ожидающие отправки")
+                .register(meterRegistry);
+        this.enqueuedCounter = Counter.builder("stats.client.hits.enqueued").register(meterRegistry);
+        this.sentCounter = Counter.builder("stats.client.hits.sent").register(meterRegistry);
+        this.droppedCounter = Counter.builder("stats.client.hits.dropped").register(meterRegistry);
+        this.retriedCounter = Counter.builder("stats.client.hits.retried").register(meterRegistry);
+
+        this.flusher = Thread.ofVirtual()
+                .name("stats-client-flusher")
+                .start(this::flushLoop);
+    }
+
+    @Override
+    public void hit(EndpointHitDto dto) {
+        Assert.notNull(dto, "EndpointHitDto must not be null");
+        enqueue(dto);
+    }
+
+    @Override
+    public void hitAll(List<EndpointHitDto> dtos) {
+        Assert.notNull(dtos, "dtos must not be null");
+        dtos.forEach(this::hit);
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return delegate.getStats(start, end, uris, unique);
+    }
+
+    @Override
+    public Stream<ViewStatsDto> streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return delegate.streamStats(start, end, uris, unique);
+    }
+
+    @Override
+    public List<RangeStatsDto> queryStats(List<UriRangeDto> ranges, boolean unique) {
+        return delegate.queryStats(ranges, unique);
+    }
+
+    @Override
+    public ViewChangesDto getViewChanges(long since, String uriPrefix, boolean unique) {
+        return delegate.getViewChanges(since, uriPrefix, unique);
+    }
+
+    @Override
+    public Map<String, Long> getViews(List<String> uris, boolean unique) {
+        return delegate.getViews(uris, unique);
+    }
+
+    /**
+     * Останавливает фоновый поток и пытается отправить оставшиеся хиты.
+     */
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(flusher);
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        while (size.get() > 0) {
+            sendBatch();
+        }
+        if (delegate instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (Exception e) {
+                log.warn("Ошибка закрытия клиента статистики: {}", e.getMessage());
+            }
+        }
+    }
+
+    private void enqueue(EndpointHitDto dto) {
+        if (running && tryReserve()) {
+            queue.offer(dto);
+            enqueuedCounter.increment();
+            if (size.get() >= props.getBatchSize()) {
+                LockSupport.unpark(flusher);
+            }
+            return;
+        }
+
+        switch (props.getOverflowPolicy()) {
+            case DROP_OLDEST -> {
+                if (queue.poll() != null) {
+                    // место освободившегося хита сразу занимает новый, size не меняется
+                    droppedCounter.increment();
+                    queue.offer(dto);
+                    enqueuedCounter.increment();
+                } else {
+                    droppedCounter.increment();
+                }
+            }
+            case SEND_SYNC -> send(List.of(dto));
+            case SPOOL -> {
+                if (spool == null || !spool.append(dto)) {
+                    droppedCounter.increment();
+                }
+            }
+            default -> droppedCounter.increment();
+        }
+    }
+
+    private boolean tryReserve() {
+        int current;
+        do {
+            current = size.get();
+            if (current >= props.getQueueCapacity()) {
+                return false;
+            }
+        } while (!size.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    private void flushLoop() {
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(props.getFlushIntervalMillis());
+        while (running) {
+            if (size.get() < props.getBatchSize()) {
+                LockSupport.parkNanos(this, intervalNanos);
+            }
+            if (size.get() > 0) {
+                sendBatch();
+            }
+        }
+    }
+
+    private void sendBatch() {
+        List<EndpointHitDto> batch = new ArrayList<>(props.getBatchSize());
+        EndpointHitDto dto;
+        while (batch.size() < props.getBatchSize() && (dto = queue.poll()) != null) {
+            batch.add(dto);
+        }
+        size.addAndGet(-batch.size());
+        if (!batch.isEmpty()) {
+            send(batch);
+        }
+    }
+
+    private void send(List<EndpointHitDto> batch) {
+        long backoff = props.getRetryBackoffMillis();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                delegate.hitAll(batch);
+                sentCounter.increment(batch.size());
+                return;
+            } catch (Exception e) {
+                if (attempt >= props.getMaxRetries() || !running) {
+                    droppedCounter.increment(batch.size());
+                    log.error("Не удалось отправить {} хитов: {}", batch.size(), e.getMessage());
+                    return;
+                }
+                retriedCounter.increment(batch.size());
+                log.warn("Ошибка отправки {} хитов, попытка {}: {}", batch.size(), attempt + 1, e.getMessage());
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(backoff));
+                backoff *= 2;
+            }
+        }
+    }
+}
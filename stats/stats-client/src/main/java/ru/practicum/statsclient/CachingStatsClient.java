@@ -0,0 +1,269 @@
+package ru.practicum.statsclient;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.util.Assert;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.dto.ViewChangesDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.statsclient.autoconfigure.StatsClientProperties;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Декоратор StatsClient, кэширующий просмотры URI с даты начала по текущий момент (queryStats).
+ *
+ * Кэшируются интервалы, конец которых не раньше текущего момента с точностью OPEN_END_TOLERANCE;
+ * ключ — URI, начало интервала и unique. Остальные интервалы запрашиваются у сервера.
+ * В кэше хранится последнее полученное с сервера значение. К нему прибавляются хиты,
+ * отправленные через этот клиент после начала загрузки значения и не раньше начала интервала:
+ * для unique — число новых IP среди них. Через refreshAfterWriteMillis значение обновляется в фоне,
+ * а чтение сразу получает текущее. Хиты, которые во время загрузки ещё не дошли до сервера
+ * или дошли до него уже после сброса локальной прибавки, учитываются неточно до следующего
+ * обновления. Для unique прибавка может быть завышена за счёт IP, уже посещавших URI.
+ *
+ * Метрики: стандартные метрики кэша Micrometer с тегом cache=stats.client.views,
+ * доля попаданий stats.client.views.hit.ratio и возраст отданных значений stats.client.views.staleness.
+ */
+public class CachingStatsClient implements StatsClient, AutoCloseable {
+
+    private static final String CACHE_NAME = "stats.client.views";
+    // Конец интервала, вычисленный вызывающим незадолго до запроса, считается текущим моментом
+    private static final Duration OPEN_END_TOLERANCE = Duration.ofSeconds(1);
+
+    private final StatsClient delegate;
+    private final LoadingCache<Key, Snapshot> cache;
+    private final ConcurrentMap<Key, LocalDelta> deltas = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<Key>> keysByUri = new ConcurrentHashMap<>();
+    private final Timer staleness;
+
+    public CachingStatsClient(StatsClient delegate, StatsClientProperties.ViewCache props, MeterRegistry meterRegistry) {
+        Assert.notNull(delegate, "delegate must not be null");
+        Assert.notNull(props, "props must not be null");
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(props.getMaximumSize())
+                .refreshAfterWrite(Duration.ofMillis(props.getRefreshAfterWriteMillis()))
+                .expireAfterWrite(Duration.ofMillis(props.getExpireAfterWriteMillis()))
+                .recordStats()
+                // Синхронно с вытеснением: прибавка не переживёт значение и не удалится у следующего
+                .evictionListener((Key key, Snapshot value, RemovalCause cause) -> forget(key))
+                .build(new ViewsLoader());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder(CACHE_NAME + ".hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Доля запросов просмотров, найденных в кэше")
+                .register(meterRegistry);
+        this.staleness = Timer.builder(CACHE_NAME + ".staleness")
+                .description("Возраст значений просмотров, отданных из кэша")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void hit(EndpointHitDto dto) {
+        delegate.hit(dto);
+        record(dto);
+    }
+
+    @Override
+    public void hitAll(List<EndpointHitDto> dtos) {
+        delegate.hitAll(dtos);
+        dtos.forEach(this::record);
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return delegate.getStats(start, end, uris, unique);
+    }
+
+    @Override
+    public Stream<ViewStatsDto> streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return delegate.streamStats(start, end, uris, unique);
+    }
+
+    @Override
+    public List<RangeStatsDto> queryStats(List<UriRangeDto> ranges, boolean unique) {
+        Assert.notNull(ranges, "ranges must not be null");
+        LocalDateTime openAfter = LocalDateTime.now().minus(OPEN_END_TOLERANCE);
+        Map<Integer, Key> cached = new LinkedHashMap<>();
+        List<Integer> passedIndexes = new ArrayList<>();
+        List<UriRangeDto> passed = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            UriRangeDto range = ranges.get(i);
+            if (range != null && range.getUri() != null && range.getStart() != null
+                    && range.getEnd() != null && !range.getEnd().isBefore(openAfter)) {
+                cached.put(i, new Key(range.getUri(), range.getStart(), unique));
+            } else {
+                passedIndexes.add(i);
+                passed.add(range);
+            }
+        }
+        if (cached.isEmpty()) {
+            return delegate.queryStats(ranges, unique);
+        }
+
+        RangeStatsDto[] result = new RangeStatsDto[ranges.size()];
+        if (!passed.isEmpty()) {
+            List<RangeStatsDto> stats = delegate.queryStats(passed, unique);
+            for (int i = 0; i < passedIndexes.size() && i < stats.size(); i++) {
+                result[passedIndexes.get(i)] = stats.get(i);
+            }
+        }
+
+        Map<Key, Snapshot> snapshots = cache.getAll(new LinkedHashSet<>(cached.values()));
+        long now = System.nanoTime();
+        cached.forEach((index, key) -> {
+            Snapshot snapshot = snapshots.get(key);
+            staleness.record(Duration.ofNanos(now - snapshot.loadedAt()));
+            if (deltas.get(key) == snapshot.delta()) {
+                // Новое значение уже в кэше, прежнему хиты больше не нужны
+                snapshot.delta().previous = null;
+            }
+            UriRangeDto range = ranges.get(index);
+            result[index] = new RangeStatsDto(range.getUri(), range.getStart(), range.getEnd(),
+                    snapshot.views() + snapshot.delta().count(unique));
+        });
+        return Arrays.asList(result);
+    }
+
+    @Override
+    public ViewChangesDto getViewChanges(long since, String uriPrefix, boolean unique) {
+        return delegate.getViewChanges(since, uriPrefix, unique);
+    }
+
+    @Override
+    public Map<String, Long> getViews(List<String> uris, boolean unique) {
+        return delegate.getViews(uris, unique);
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    // Прибавка ведётся только для интервалов, уже находящихся в кэше и начавшихся не позже хита
+    private void record(EndpointHitDto dto) {
+        if (dto == null || dto.getUri() == null) {
+            return;
+        }
+        Set<Key> keys = keysByUri.get(dto.getUri());
+        if (keys == null) {
+            return;
+        }
+        for (Key key : keys) {
+            if (dto.getTimestamp() == null || !dto.getTimestamp().isBefore(key.start())) {
+                deltas.computeIfPresent(key, (k, delta) -> delta.add(dto.getIp()));
+            }
+        }
+    }
+
+    private void forget(Key key) {
+        deltas.remove(key);
+        keysByUri.computeIfPresent(key.uri(), (uri, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private class ViewsLoader implements CacheLoader<Key, Snapshot> {
+
+        @Override
+        public Snapshot load(Key key) {
+            return loadAll(Set.of(key)).get(key);
+        }
+
+        /**
+         * Один запрос queryStats по текущий момент на каждое значение unique среди ключей.
+         */
+        @Override
+        public Map<Key, Snapshot> loadAll(Set<? extends Key> keys) {
+            Map<Boolean, List<Key>> keysByUnique = new HashMap<>();
+            Map<Key, LocalDelta> started = new HashMap<>();
+            for (Key key : keys) {
+                // Хиты, отправленные с этого момента, прибавляются к новому значению,
+                // а до его появления в кэше — и к прежнему
+                LocalDelta delta = new LocalDelta(deltas.get(key));
+                deltas.put(key, delta);
+                keysByUri.computeIfAbsent(key.uri(), uri -> ConcurrentHashMap.newKeySet()).add(key);
+                started.put(key, delta);
+                keysByUnique.computeIfAbsent(key.unique(), unique -> new ArrayList<>()).add(key);
+            }
+
+            Map<Key, Snapshot> result = new HashMap<>();
+            keysByUnique.forEach((unique, uniqueKeys) -> {
+                LocalDateTime end = LocalDateTime.now();
+                List<UriRangeDto> ranges = uniqueKeys.stream()
+                        .map(key -> new UriRangeDto(key.uri(), key.start(), end))
+                        .toList();
+                List<RangeStatsDto> stats = delegate.queryStats(ranges, unique);
+                long loadedAt = System.nanoTime();
+                for (int i = 0; i < uniqueKeys.size(); i++) {
+                    Long hits = i < stats.size() ? stats.get(i).getHits() : null;
+                    Key key = uniqueKeys.get(i);
+                    result.put(key, new Snapshot(hits != null ? hits : 0L, loadedAt, started.get(key)));
+                }
+            });
+            return result;
+        }
+    }
+
+    private static final class LocalDelta {
+        private final LongAdder hits = new LongAdder();
+        private final Set<String> ips = ConcurrentHashMap.newKeySet();
+        private volatile LocalDelta previous;
+
+        LocalDelta(LocalDelta previous) {
+            this.previous = previous;
+        }
+
+        LocalDelta add(String ip) {
+            addOwn(ip);
+            LocalDelta prev = previous;
+            if (prev != null) {
+                prev.addOwn(ip);
+            }
+            return this;
+        }
+
+        private void addOwn(String ip) {
+            hits.increment();
+            if (ip != null) {
+                ips.add(ip);
+            }
+        }
+
+        long count(boolean unique) {
+            return unique ? ips.size() : hits.sum();
+        }
+    }
+
+    private record Snapshot(long views, long loadedAt, LocalDelta delta) {
+    }
+
+    private record Key(String uri, LocalDateTime start, boolean unique) {
+    }
+}
@@ -0,0 +1,321 @@
+package ru.practicum.statsclient;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.client.HttpClientErrorException;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.dto.ViewChangesDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.statsclient.autoconfigure.StatsClientProperties;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Декоратор StatsClient с автоматическим выключателем (circuit breaker).
+ *
+ * Результаты последних windowSize вызовов хранятся в кольцевом буфере. Когда доля ошибок среди них
+ * (не меньше minimumCalls) достигает failureRateThreshold, выключатель размыкается: вызовы на
+ * openDurationMillis не доходят до сервера. Запросы статистики в это время получают последний
+ * успешный результат для тех же URI, unique и начала интервала (POST /stats/query — по каждому
+ * интервалу), просмотры — последние известные значения по URI, изменения просмотров — пустой ответ
+ * с курсором null (курсор вызывающего не сдвигается). При отсутствии последних значений, а также
+ * хиты получают StatsClientException без ожидания таймаутов.
+ * Затем до halfOpenCalls пробных вызовов проходят к серверу: успех всех замыкает выключатель,
+ * первая ошибка снова размыкает. Ответы 4xx ошибками сервера не считаются.
+ *
+ * Метрики: состояние stats.client.circuit.state (0 — замкнут, 1 — разомкнут, 2 — пробные вызовы),
+ * отклонённые вызовы stats.client.circuit.rejected и ответы из последних значений stats.client.circuit.fallback.
+ */
+public class CircuitBreakerStatsClient implements StatsClient, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(CircuitBreakerStatsClient.class);
+
+    enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final StatsClient delegate;
+    private final StatsClientProperties.CircuitBreaker props;
+    private final long openDurationNanos;
+
+    // Кольцевой буфер результатов: true — ошибка
+    private final boolean[] outcomes;
+    private int position;
+    private int recorded;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private int halfOpenPermits;
+    private int halfOpenSucceeded;
+
+    private final Cache<StatsKey, List<ViewStatsDto>> lastStats;
+    private final Cache<ViewsKey, Long> lastViews;
+    private final Cache<RangeKey, RangeStatsDto> lastRanges;
+
+    private final Counter rejectedCounter;
+    private final Counter fallbackCounter;
+
+    public CircuitBreakerStatsClient(StatsClient delegate, StatsClientProperties.CircuitBreaker props,
+                                     MeterRegistry meterRegistry) {
+        Assert.notNull(delegate, "delegate must not be null");
+        Assert.notNull(props, "props must not be null");
+        this.delegate = delegate;
+        this.props = props;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(props.getOpenDurationMillis());
+        this.outcomes = new boolean[props.getWindowSize()];
+        this.lastStats = Caffeine.newBuilder().maximumSize(props.getFallbackMaximumSize()).build();
+        this.lastViews = Caffeine.newBuilder().maximumSize(props.getFallbackMaximumSize()).build();
+        this.lastRanges = Caffeine.newBuilder().maximumSize(props.getFallbackMaximumSize()).build();
+
+        Gauge.builder("stats.client.circuit.state", this, client -> client.getState().ordinal())
+                .description("Состояние выключателя: 0 — замкнут, 1 — разомкнут, 2 — пробные вызовы")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("stats.client.circuit.rejected").register(meterRegistry);
+        this.fallbackCounter = Counter.builder("stats.client.circuit.fallback").register(meterRegistry);
+    }
+
+    @Override
+    public void hit(EndpointHitDto dto) {
+        call(() -> {
+            delegate.hit(dto);
+            return null;
+        });
+    }
+
+    @Override
+    public void hitAll(List<EndpointHitDto> dtos) {
+        call(() -> {
+            delegate.hitAll(dtos);
+            return null;
+        });
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        StatsKey key = new StatsKey(start, uris == null ? List.of() : List.copyOf(new TreeSet<>(uris)), unique);
+        try {
+            List<ViewStatsDto> stats = call(() -> delegate.getStats(start, end, uris, unique));
+            lastStats.put(key, List.copyOf(stats));
+            return stats;
+        } catch (StatsClientException e) {
+            List<ViewStatsDto> last = lastStats.getIfPresent(key);
+            if (last == null || !(e instanceof CircuitOpenException) && !isOpen()) {
+                throw e;
+            }
+            fallbackCounter.increment();
+            return new ArrayList<>(last);
+        }
+    }
+
+    @Override
+    public Stream<ViewStatsDto> streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return call(() -> delegate.streamStats(start, end, uris, unique));
+    }
+
+    @Override
+    public List<RangeStatsDto> queryStats(List<UriRangeDto> ranges, boolean unique) {
+        try {
+            List<RangeStatsDto> stats = call(() -> delegate.queryStats(ranges, unique));
+            // Ответ идёт в порядке запроса
+            for (int i = 0; i < ranges.size() && i < stats.size(); i++) {
+                RangeStatsDto stat = stats.get(i);
+                lastRanges.put(new RangeKey(ranges.get(i).getUri(), ranges.get(i).getStart(), unique),
+                        new RangeStatsDto(stat.getUri(), stat.getStart(), stat.getEnd(), stat.getHits()));
+            }
+            return stats;
+        } catch (StatsClientException e) {
+            if (!(e instanceof CircuitOpenException) && !isOpen()) {
+                throw e;
+            }
+            List<RangeStatsDto> stats = new ArrayList<>(ranges.size());
+            for (UriRangeDto range : ranges) {
+                RangeStatsDto last = lastRanges.getIfPresent(new RangeKey(range.getUri(), range.getStart(), unique));
+                if (last == null) {
+                    throw e;
+                }
+                stats.add(new RangeStatsDto(last.getUri(), last.getStart(), last.getEnd(), last.getHits()));
+            }
+            fallbackCounter.increment();
+            return stats;
+        }
+    }
+
+    @Override
+    public ViewChangesDto getViewChanges(long since, String uriPrefix, boolean unique) {
+        try {
+            return call(() -> delegate.getViewChanges(since, uriPrefix, unique));
+        } catch (StatsClientException e) {
+            if (!(e instanceof CircuitOpenException) && !isOpen()) {
+                throw e;
+            }
+            // Изменения, не полученные сейчас, придут следующим запросом с тем же курсором
+            fallbackCounter.increment();
+            return new ViewChangesDto(null, new ArrayList<>());
+        }
+    }
+
+    @Override
+    public Map<String, Long> getViews(List<String> uris, boolean unique) {
+        try {
+            Map<String, Long> views = call(() -> delegate.getViews(uris, unique));
+            // URI без просмотров запоминаются с нулём, чтобы отличать их от неизвестных
+            uris.forEach(uri -> lastViews.put(new ViewsKey(uri, unique), views.getOrDefault(uri, 0L)));
+            return views;
+        } catch (StatsClientException e) {
+            if (!(e instanceof CircuitOpenException) && !isOpen()) {
+                throw e;
+            }
+            Map<String, Long> views = new LinkedHashMap<>();
+            for (String uri : uris) {
+                Long last = lastViews.getIfPresent(new ViewsKey(uri, unique));
+                if (last == null) {
+                    throw e;
+                }
+                if (last > 0) {
+                    views.put(uri, last);
+                }
+            }
+            fallbackCounter.increment();
+            return views;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    synchronized State getState() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openDurationNanos) {
+            transition(State.HALF_OPEN);
+        }
+        return state;
+    }
+
+    private boolean isOpen() {
+        return getState() == State.OPEN;
+    }
+
+    private <T> T call(Supplier<T> supplier) {
+        if (!tryAcquire()) {
+            rejectedCounter.increment();
+            throw new CircuitOpenException();
+        }
+        T result;
+        try {
+            result = supplier.get();
+        } catch (RuntimeException e) {
+            if (e.getCause() instanceof HttpClientErrorException) {
+                onSuccess();
+            } else {
+                onFailure();
+            }
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    private synchronized boolean tryAcquire() {
+        State current = getState();
+        if (current == State.CLOSED) {
+            return true;
+        }
+        if (current == State.HALF_OPEN && halfOpenPermits > 0) {
+            halfOpenPermits--;
+            return true;
+        }
+        return false;
+    }
+
+    private synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSucceeded >= props.getHalfOpenCalls()) {
+                transition(State.CLOSED);
+            }
+            return;
+        }
+        record(false);
+    }
+
+    private synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            transition(State.OPEN);
+            return;
+        }
+        record(true);
+        if (state == State.CLOSED && recorded >= props.getMinimumCalls()
+                && failures * 100.0 / recorded >= props.getFailureRateThreshold()) {
+            transition(State.OPEN);
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recorded == outcomes.length) {
+            if (outcomes[position]) {
+                failures--;
+            }
+        } else {
+            recorded++;
+        }
+        outcomes[position] = failure;
+        if (failure) {
+            failures++;
+        }
+        position = (position + 1) % outcomes.length;
+    }
+
+    private void transition(State next) {
+        log.warn("Выключатель клиента статистики: {} -> {}", state, next);
+        state = next;
+        switch (next) {
+            case OPEN -> openedAt = System.nanoTime();
+            case HALF_OPEN -> {
+                halfOpenPermits = props.getHalfOpenCalls();
+                halfOpenSucceeded = 0;
+            }
+            case CLOSED -> {
+                position = 0;
+                recorded = 0;
+                failures = 0;
+            }
+        }
+    }
+
+    /**
+     * Вызов отклонён разомкнутым выключателем без обращения к серверу.
+     */
+    static class CircuitOpenException extends StatsClientException {
+        CircuitOpenException() {
+            super("Сервис статистики недоступен: выключатель разомкнут");
+        }
+    }
+
+    private record StatsKey(LocalDateTime start, List<String> uris, boolean unique) {
+    }
+
+    private record ViewsKey(String uri, boolean unique) {
+    }
+
+    private record RangeKey(String uri, LocalDateTime start, boolean unique) {
+    }
+}
@@ -0,0 +1,191 @@
+package ru.practicum.statsclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.util.Assert;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.dto.ViewChangesDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.statsclient.autoconfigure.StatsClientProperties;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Декоратор StatsClient, объединяющий одновременные одинаковые запросы статистики.
+ *
+ * Объединяются GET /stats, POST /stats/query и просмотры за всё время (GET /stats/lifetime).
+ * Ключ GET /stats — набор URI без учёта порядка, признак unique и интервал, округлённый до
+ * rangeRoundingMillis: начало вниз, конец вверх. Ключ POST /stats/query — список интервалов
+ * в порядке запроса с такими же округлёнными границами, ключ просмотров — набор URI и unique.
+ * Первый поток выполняет запрос делегата с округлёнными границами, остальные ждут его результат.
+ * Завершённые запросы не кэшируются. Хиты, поток статистики и изменения просмотров передаются
+ * делегату без изменений.
+ */
+public class CoalescingStatsClient implements StatsClient, AutoCloseable {
+
+    private final StatsClient delegate;
+    private final long roundingNanos;
+    private final ConcurrentMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter requestsCounter;
+    private final Counter coalescedCounter;
+
+    public CoalescingStatsClient(StatsClient delegate, StatsClientProperties.Coalescing props, MeterRegistry meterRegistry) {
+        Assert.notNull(delegate, "delegate must not be null");
+        Assert.notNull(props, "props must not be null");
+        Assert.isTrue(props.getRangeRoundingMillis() > 0, "rangeRoundingMillis must be positive");
+        this.delegate = delegate;
+        this.roundingNanos = Duration.ofMillis(props.getRangeRoundingMillis()).toNanos();
+
+        this.requestsCounter = Counter.builder("stats.client.stats.requests").register(meterRegistry);
+        this.coalescedCounter = Counter.builder("stats.client.stats.coalesced")
+                .description("Запросы статистики, получившие результат чужого запроса")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void hit(EndpointHitDto dto) {
+        delegate.hit(dto);
+    }
+
+    @Override
+    public void hitAll(List<EndpointHitDto> dtos) {
+        delegate.hitAll(dtos);
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        Assert.notNull(start, "start must not be null");
+        Assert.notNull(end, "end must not be null");
+
+        StatsKey key = new StatsKey(floor(start), ceil(end), uris == null || uris.isEmpty() ? null : sorted(uris), unique);
+        List<ViewStatsDto> stats = coalesce(key, () -> delegate.getStats(key.start(), key.end(), key.uris(), unique));
+        return stats != null ? new ArrayList<>(stats) : new ArrayList<>();
+    }
+
+    @Override
+    public Stream<ViewStatsDto> streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return delegate.streamStats(start, end, uris, unique);
+    }
+
+    @Override
+    public List<RangeStatsDto> queryStats(List<UriRangeDto> ranges, boolean unique) {
+        Assert.notNull(ranges, "ranges must not be null");
+        if (ranges.isEmpty()) {
+            return delegate.queryStats(ranges, unique);
+        }
+
+        // Ответ сопоставляется с запросом по позиции, поэтому порядок интервалов входит в ключ
+        List<UriRangeDto> rounded = ranges.stream()
+                .map(range -> new UriRangeDto(range.getUri(),
+                        range.getStart() != null ? floor(range.getStart()) : null,
+                        range.getEnd() != null ? ceil(range.getEnd()) : null))
+                .toList();
+        List<RangeStatsDto> stats = coalesce(new QueryKey(rounded, unique), () -> delegate.queryStats(rounded, unique));
+        List<RangeStatsDto> copy = new ArrayList<>();
+        if (stats != null) {
+            stats.forEach(stat -> copy.add(new RangeStatsDto(stat.getUri(), stat.getStart(), stat.getEnd(), stat.getHits())));
+        }
+        return copy;
+    }
+
+    @Override
+    public ViewChangesDto getViewChanges(long since, String uriPrefix, boolean unique) {
+        return delegate.getViewChanges(since, uriPrefix, unique);
+    }
+
+    @Override
+    public Map<String, Long> getViews(List<String> uris, boolean unique) {
+        Assert.notNull(uris, "uris must not be null");
+        if (uris.isEmpty()) {
+            return delegate.getViews(uris, unique);
+        }
+
+        ViewsKey key = new ViewsKey(sorted(uris), unique);
+        Map<String, Long> views = coalesce(key, () -> delegate.getViews(key.uris(), unique));
+        return views != null ? new LinkedHashMap<>(views) : new LinkedHashMap<>();
+    }
+
+    @Override
+    public void close() throws Exception {
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    /**
+     * Выполняет запрос делегата или ждёт результат такого же выполняющегося запроса.
+     * Результат общий для всех ожидавших, поэтому вызывающие копируют его перед возвратом.
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(Object key, Supplier<T> request) {
+        requestsCounter.increment();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, future);
+        if (running != null) {
+            coalescedCounter.increment();
+            return (T) await(running);
+        }
+
+        try {
+            T result = request.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private static Object await(CompletableFuture<Object> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new StatsClientException("Ошибка объединённого запроса статистики: " + e.getCause(), e.getCause());
+        }
+    }
+
+    private static List<String> sorted(List<String> uris) {
+        return List.copyOf(new TreeSet<>(uris));
+    }
+
+    private LocalDateTime floor(LocalDateTime value) {
+        long nanos = value.toLocalTime().toNanoOfDay();
+        return value.truncatedTo(ChronoUnit.DAYS).plusNanos(nanos - nanos % roundingNanos);
+    }
+
+    private LocalDateTime ceil(LocalDateTime value) {
+        LocalDateTime floor = floor(value);
+        return floor.equals(value) ? floor : floor.plusNanos(roundingNanos);
+    }
+
+    private record StatsKey(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+    }
+
+    // UriRangeDto сравнивается по значению (@Data)
+    private record QueryKey(List<UriRangeDto> ranges, boolean unique) {
+    }
+
+    private record ViewsKey(List<String> uris, boolean unique) {
+    }
+}
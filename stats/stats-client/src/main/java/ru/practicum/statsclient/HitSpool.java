@@ -0,0 +1,409 @@
+package ru.practicum.statsclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.statsclient.autoconfigure.StatsClientProperties;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал хитов на диске для случаев, когда сервис статистики недоступен.
+ *
+ * Журнал состоит из сегментов фиксированного размера, отображённых в память (hits-N.spool).
+ * Запись: длина данных (int), CRC32C данных (int), данные: app, uri, ip (длина short и UTF-8,
+ * -1 — null) и timestamp (секунды и наносекунды). Нулевая длина или неверная контрольная сумма
+ * означают конец записанных данных сегмента, поэтому оборванная при сбое запись отбрасывается.
+ * После перезапуска запись продолжается в новом сегменте.
+ *
+ * Фоновый поток отправляет хиты пачками и после каждой успешной отправки атомарно (через
+ * переименование файла) сохраняет позицию чтения в файл offset; прочитанные сегменты удаляются.
+ * Доставка «хотя бы один раз»: при сбое между отправкой и сохранением позиции пачка уйдёт повторно.
+ * Если сегментов уже maxSegments, новые хиты отбрасываются.
+ *
+ * Данные попадают в страничный кэш ОС сразу и переживают падение процесса, но не отключение питания.
+ */
+public class HitSpool implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(HitSpool.class);
+
+    private static final String SEGMENT_PREFIX = "hits-";
+    private static final String SEGMENT_SUFFIX = ".spool";
+    private static final String OFFSET_FILE = "offset";
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxSegments;
+    private final int batchSize;
+    private final long retryIntervalNanos;
+    private final Consumer<List<EndpointHitDto>> sender;
+
+    // Все поля ниже, кроме отмеченных volatile, защищены this
+    private final TreeMap<Long, Path> segments = new TreeMap<>();
+    private long writeSegment;
+    private MappedByteBuffer writeBuffer;
+    private volatile long publishedSegment;
+    private volatile int publishedPosition;
+
+    private long readSegment;
+    private int readPosition;
+
+    // Только поток отправки
+    private long mappedSegment = -1;
+    private MappedByteBuffer readBuffer;
+
+    private final Counter appendedCounter;
+    private final Counter replayedCounter;
+    private final Counter droppedCounter;
+
+    private final Thread replayer;
+    private volatile boolean running = true;
+
+    public HitSpool(StatsClientProperties.Spool props, Consumer<List<EndpointHitDto>> sender, MeterRegistry meterRegistry) {
+        Assert.notNull(props, "props must not be null");
+        Assert.notNull(sender, "sender must not be null");
+        Assert.isTrue(props.getMaxSegments() >= 2, "maxSegments must be at least 2");
+        this.directory = Path.of(props.getDirectory());
+        this.segmentSize = props.getSegmentSizeBytes();
+        this.maxSegments = props.getMaxSegments();
+        this.batchSize = props.getReplayBatchSize();
+        this.retryIntervalNanos = TimeUnit.MILLISECONDS.toNanos(props.getReplayIntervalMillis());
+        this.sender = sender;
+
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Не удалось открыть журнал хитов " + directory, e);
+        }
+
+        Gauge.builder("stats.client.spool.segments", this, HitSpool::segmentCount)
+                .description("Сегменты журнала хитов на диске")
+                .register(meterRegistry);
+        this.appendedCounter = Counter.builder("stats.client.spool.appended").register(meterRegistry);
+        this.replayedCounter = Counter.builder("stats.client.spool.replayed").register(meterRegistry);
+        this.droppedCounter = Counter.builder("stats.client.spool.dropped").register(meterRegistry);
+
+        this.replayer = Thread.ofVirtual()
+                .name("stats-client-spool-replayer")
+                .start(this::replayLoop);
+    }
+
+    /**
+     * Дописывает хит в журнал; false, если журнал заполнен или хит не помещается в сегмент.
+     */
+    public boolean append(EndpointHitDto dto) {
+        byte[] payload = encode(dto);
+        int size = HEADER_BYTES + payload.length;
+        // После записи должно остаться место под нулевую длину — признак конца сегмента
+        if (size + Integer.BYTES > segmentSize) {
+            droppedCounter.increment();
+            return false;
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        synchronized (this) {
+            if (writeBuffer.remaining() < size + Integer.BYTES && !roll()) {
+                droppedCounter.increment();
+                return false;
+            }
+            int position = writeBuffer.position();
+            writeBuffer.position(position + Integer.BYTES);
+            writeBuffer.putInt((int) crc.getValue()).put(payload);
+            // Длина пишется последней: до неё запись считается отсутствующей
+            writeBuffer.putInt(position, payload.length);
+            publishedPosition = writeBuffer.position();
+        }
+        appendedCounter.increment();
+        LockSupport.unpark(replayer);
+        return true;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        LockSupport.unpark(replayer);
+        replayer.join(TimeUnit.SECONDS.toMillis(10));
+        synchronized (this) {
+            writeBuffer.force();
+        }
+    }
+
+    private synchronized int segmentCount() {
+        return segments.size();
+    }
+
+    private void recover() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())), file);
+                }
+            });
+        }
+
+        readSegment = segments.isEmpty() ? 0 : segments.firstKey();
+        readPosition = 0;
+        Path offsetFile = directory.resolve(OFFSET_FILE);
+        if (Files.exists(offsetFile)) {
+            ByteBuffer offset = ByteBuffer.wrap(Files.readAllBytes(offsetFile));
+            long segment = offset.getLong();
+            int position = offset.getInt();
+            if (segments.containsKey(segment)) {
+                readSegment = segment;
+                readPosition = position;
+            }
+        }
+        // Сегменты до сохранённой позиции уже отправлены
+        for (Map.Entry<Long, Path> entry : new ArrayList<>(segments.headMap(readSegment).entrySet())) {
+            Files.deleteIfExists(entry.getValue());
+            segments.remove(entry.getKey());
+        }
+
+        writeSegment = segments.isEmpty() ? readSegment : segments.lastKey() + 1;
+        writeBuffer = map(writeSegment);
+        segments.put(writeSegment, segmentPath(writeSegment));
+        publishedSegment = writeSegment;
+        publishedPosition = 0;
+        if (segments.size() > 1) {
+            log.info("Журнал хитов: к отправке {} сегментов", segments.size() - 1);
+        }
+    }
+
+    private boolean roll() {
+        if (segments.size() >= maxSegments) {
+            return false;
+        }
+        try {
+            MappedByteBuffer next = map(writeSegment + 1);
+            writeSegment++;
+            writeBuffer = next;
+            segments.put(writeSegment, segmentPath(writeSegment));
+            publishedPosition = 0;
+            publishedSegment = writeSegment;
+            return true;
+        } catch (IOException e) {
+            log.error("Не удалось создать сегмент журнала хитов: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private MappedByteBuffer map(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(SEGMENT_PREFIX + String.format("%020d", segment) + SEGMENT_SUFFIX);
+    }
+
+    private void replayLoop() {
+        while (running) {
+            List<EndpointHitDto> batch = new ArrayList<>(batchSize);
+            long nextSegment;
+            int nextPosition;
+            try {
+                synchronized (this) {
+                    nextSegment = readSegment;
+                    nextPosition = readPosition;
+                }
+                long[] cursor = {nextSegment, nextPosition};
+                read(cursor, batch);
+                nextSegment = cursor[0];
+                nextPosition = (int) cursor[1];
+            } catch (IOException | RuntimeException e) {
+                // Исключение не должно завершать поток повторной отправки
+                log.error("Ошибка чтения журнала хитов: {}", e.toString());
+                LockSupport.parkNanos(this, retryIntervalNanos);
+                continue;
+            }
+
+            if (!batch.isEmpty()) {
+                try {
+                    sender.accept(batch);
+                    replayedCounter.increment(batch.size());
+                } catch (Exception e) {
+                    log.debug("Отправка хитов из журнала отложена: {}", e.getMessage());
+                    LockSupport.parkNanos(this, retryIntervalNanos);
+                    continue;
+                }
+            }
+            try {
+                commit(nextSegment, nextPosition);
+            } catch (IOException e) {
+                log.error("Не удалось сохранить позицию журнала хитов: {}", e.getMessage());
+            }
+            if (batch.size() < batchSize) {
+                LockSupport.parkNanos(this, retryIntervalNanos);
+            }
+        }
+    }
+
+    /**
+     * Читает до batchSize записей начиная с cursor = {сегмент, позиция} и сдвигает cursor.
+     */
+    private void read(long[] cursor, List<EndpointHitDto> batch) throws IOException {
+        while (batch.size() < batchSize) {
+            long segment = cursor[0];
+            int position = (int) cursor[1];
+            boolean active = segment == publishedSegment;
+            int limit = active ? publishedPosition : segmentSize;
+
+            if (mappedSegment != segment) {
+                readBuffer = map(segment);
+                mappedSegment = segment;
+            }
+            int length = position + HEADER_BYTES <= limit ? readBuffer.getInt(position) : 0;
+            if (length > 0 && position + HEADER_BYTES + length <= limit) {
+                byte[] payload = new byte[length];
+                readBuffer.get(position + HEADER_BYTES, payload);
+                CRC32C crc = new CRC32C();
+                crc.update(payload);
+                if ((int) crc.getValue() == readBuffer.getInt(position + Integer.BYTES)) {
+                    try {
+                        batch.add(decode(payload));
+                    } catch (RuntimeException e) {
+                        // Повторное чтение даст ту же ошибку: запись пропускается
+                        droppedCounter.increment();
+                        log.error("Пропущена повреждённая запись журнала хитов (сегмент {}, позиция {}): {}",
+                                segment, position, e.toString());
+                    }
+                    cursor[1] = position + HEADER_BYTES + length;
+                    continue;
+                }
+            }
+            if (active) {
+                return;
+            }
+            // Конец закрытого сегмента: переходим к следующему
+            synchronized (this) {
+                Long next = segments.higherKey(segment);
+                if (next == null) {
+                    return;
+                }
+                cursor[0] = next;
+                cursor[1] = 0;
+            }
+        }
+    }
+
+    private void commit(long segment, int position) throws IOException {
+        synchronized (this) {
+            if (segment == readSegment && position == readPosition) {
+                return;
+            }
+        }
+        ByteBuffer offset = ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(segment).putInt(position);
+        Path temp = directory.resolve(OFFSET_FILE + ".tmp");
+        Files.write(temp, offset.array());
+        Files.move(temp, directory.resolve(OFFSET_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        List<Path> consumed;
+        synchronized (this) {
+            readSegment = segment;
+            readPosition = position;
+            Map<Long, Path> head = segments.headMap(segment);
+            consumed = new ArrayList<>(head.values());
+            head.clear();
+        }
+        for (Path path : consumed) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static byte[] encode(EndpointHitDto dto) {
+        byte[] app = bytes(dto.getApp());
+        byte[] uri = bytes(dto.getUri());
+        byte[] ip = bytes(dto.getIp());
+        ByteBuffer buffer = ByteBuffer.allocate(3 * Short.BYTES + length(app) + length(uri) + length(ip)
+                + Long.BYTES + Integer.BYTES);
+        put(buffer, app);
+        put(buffer, uri);
+        put(buffer, ip);
+        LocalDateTime timestamp = dto.getTimestamp();
+        if (timestamp != null) {
+            buffer.putLong(timestamp.toEpochSecond(ZoneOffset.UTC)).putInt(timestamp.getNano());
+        } else {
+            buffer.putLong(Long.MIN_VALUE).putInt(0);
+        }
+        return buffer.array();
+    }
+
+    private static EndpointHitDto decode(byte[] payload) {
+        ByteBuffer buffer = ByteBuffer.wrap(payload);
+        try {
+            String app = string(buffer);
+            String uri = string(buffer);
+            String ip = string(buffer);
+            long seconds = buffer.getLong();
+            int nanos = buffer.getInt();
+            LocalDateTime timestamp = seconds == Long.MIN_VALUE ? null
+                    : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+            return EndpointHitDto.builder().app(app).uri(uri).ip(ip).timestamp(timestamp).build();
+        } catch (BufferUnderflowException e) {
+            throw new IllegalStateException("Повреждённая запись журнала хитов", e);
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        if (value == null) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length <= Short.MAX_VALUE ? bytes : new String(bytes, 0, Short.MAX_VALUE, StandardCharsets.UTF_8)
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private static void put(ByteBuffer buffer, byte[] bytes) {
+        if (bytes == null) {
+            buffer.putShort((short) -1);
+        } else {
+            buffer.putShort((short) bytes.length).put(bytes);
+        }
+    }
+
+    private static String string(ByteBuffer buffer) {
+        short length = buffer.getShort();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,21 @@
+package ru.practicum.statsclient;
+
+/**
+ * HTTP-транспорт RestTemplate клиента статистики.
+ */
+public enum HttpTransport {
+    /**
+     * Стандартная фабрика запросов RestTemplate (HttpURLConnection).
+     */
+    SIMPLE,
+
+    /**
+     * Apache HttpClient 5 с пулом соединений.
+     */
+    APACHE,
+
+    /**
+     * java.net.http.HttpClient, в том числе с HTTP/2.
+     */
+    JDK
+}
@@ -0,0 +1,26 @@
+package ru.practicum.statsclient;
+
+/**
+ * Поведение асинхронного клиента при заполненной очереди хитов.
+ */
+public enum OverflowPolicy {
+    /**
+     * Отбросить новый хит.
+     */
+    DROP_NEWEST,
+
+    /**
+     * Вытеснить самый старый хит из очереди и поставить новый.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Отправить хит синхронно в потоке вызывающего.
+     */
+    SEND_SYNC,
+
+    /**
+     * Дописать хит в журнал на диске (stats.client.spool); без журнала хит отбрасывается.
+     */
+    SPOOL
+}
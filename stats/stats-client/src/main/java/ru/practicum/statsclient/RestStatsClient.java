@@ -1,21 +1,41 @@
 package ru.practicum.statsclient;
 
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.util.Assert;
+import org.springframework.web.client.ResponseErrorHandler;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.StatsQueryDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.dto.ViewChangesDto;
 import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.dto.binary.StatsBinaryHttpMessageConverter;
 
+import java.io.IOException;
 import java.net.URI;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Реализация StatsClient на основе RestTemplate.
@@ -24,14 +44,30 @@ import java.util.List;
 public class RestStatsClient implements StatsClient {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final ObjectReader STATS_READER = new ObjectMapper().readerFor(ViewStatsDto.class);
 
     private final RestTemplate restTemplate;
     private final String baseUrl;
+    private final HttpHeaders bodyHeaders = new HttpHeaders();
+    private final HttpHeaders acceptHeaders = new HttpHeaders();
 
     public RestStatsClient(RestTemplate restTemplate, String baseUrl) {
+        this(restTemplate, baseUrl, WireFormat.JSON);
+    }
+
+    /**
+     * Для WireFormat.BINARY в restTemplate должен быть зарегистрирован StatsBinaryHttpMessageConverter.
+     */
+    public RestStatsClient(RestTemplate restTemplate, String baseUrl, WireFormat wireFormat) {
         Assert.notNull(restTemplate, "restTemplate must not be null");
         Assert.hasText(baseUrl, "baseUrl must not be blank");
+        Assert.notNull(wireFormat, "wireFormat must not be null");
         this.restTemplate = restTemplate;
+        if (wireFormat == WireFormat.BINARY) {
+            bodyHeaders.setContentType(StatsBinaryHttpMessageConverter.MEDIA_TYPE);
+            acceptHeaders.setAccept(List.of(StatsBinaryHttpMessageConverter.MEDIA_TYPE));
+        }
         // Удаляем завершающий слэш, чтобы избежать двойных слэшей при сборке URL
         if (baseUrl.endsWith("/")) {
             this.baseUrl = baseUrl.substring(0, baseUrl.length() - 1);
@@ -48,43 +84,182 @@ public class RestStatsClient implements StatsClient {
                 .build()
                 .toUri();
         try {
-            restTemplate.postForLocation(uri, dto);
+            restTemplate.postForLocation(uri, new HttpEntity<>(dto, bodyHeaders));
         } catch (RestClientException ex) {
             throw new StatsClientException("Ошибка вызова POST /hit: " + ex.getMessage(), ex);
         }
     }
 
+    @Override
+    public void hitAll(List<EndpointHitDto> dtos) {
+        Assert.notNull(dtos, "dtos must not be null");
+        if (dtos.isEmpty()) {
+            return;
+        }
+        URI uri = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path("/hits")
+                .build()
+                .toUri();
+        try {
+            restTemplate.postForLocation(uri, new HttpEntity<>(dtos, bodyHeaders));
+        } catch (RestClientException ex) {
+            throw new StatsClientException("Ошибка вызова POST /hits: " + ex.getMessage(), ex);
+        }
+    }
+
     @Override
     public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
         Assert.notNull(start, "start must not be null");
         Assert.notNull(end, "end must not be null");
 
-        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(baseUrl)
-                .path("/stats")
-                .queryParam("start", start.format(FORMATTER))
-                .queryParam("end", end.format(FORMATTER))
-                .queryParam("unique", unique);
+        URI uri = statsUri("/stats", start, end, uris, unique);
 
-        if (uris != null && !uris.isEmpty()) {
-            for (String u : uris) {
-                builder.queryParam("uris", u);
+        try {
+            ResponseEntity<List<ViewStatsDto>> response = restTemplate.exchange(
+                    uri,
+                    HttpMethod.GET,
+                    new HttpEntity<>(acceptHeaders),
+                    new ParameterizedTypeReference<List<ViewStatsDto>>() {}
+            );
+
+            List<ViewStatsDto> body = response.getBody();
+            return body != null ? body : new ArrayList<>();
+        } catch (RestClientException ex) {
+            throw new StatsClientException("Ошибка вызова GET /stats: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public Stream<ViewStatsDto> streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        Assert.notNull(start, "start must not be null");
+        Assert.notNull(end, "end must not be null");
+
+        URI uri = statsUri("/stats/stream", start, end, uris, unique);
+        ClientHttpResponse response = null;
+        try {
+            // Запрос выполняется через фабрику RestTemplate, чтобы ответ читался по мере потребления потока
+            ClientHttpRequest request = restTemplate.getRequestFactory().createRequest(uri, HttpMethod.GET);
+            request.getHeaders().setAccept(List.of(NDJSON));
+            response = request.execute();
+            ResponseErrorHandler errorHandler = restTemplate.getErrorHandler();
+            if (errorHandler.hasError(response)) {
+                errorHandler.handleError(uri, HttpMethod.GET, response);
+            }
+            MappingIterator<ViewStatsDto> rows = STATS_READER.readValues(response.getBody());
+            return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rows, Spliterator.ORDERED), false)
+                    .onClose(response::close);
+        } catch (IOException | RestClientException ex) {
+            if (response != null) {
+                response.close();
             }
+            throw new StatsClientException("Ошибка вызова GET /stats/stream: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public List<RangeStatsDto> queryStats(List<UriRangeDto> ranges, boolean unique) {
+        Assert.notNull(ranges, "ranges must not be null");
+        if (ranges.isEmpty()) {
+            return new ArrayList<>();
+        }
+        URI uri = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path("/stats/query")
+                .build()
+                .toUri();
+
+        try {
+            // Двоичный формат эти DTO не поддерживает, запрос всегда в JSON
+            ResponseEntity<List<RangeStatsDto>> response = restTemplate.exchange(
+                    uri,
+                    HttpMethod.POST,
+                    new HttpEntity<>(new StatsQueryDto(ranges, unique)),
+                    new ParameterizedTypeReference<List<RangeStatsDto>>() {}
+            );
+
+            List<RangeStatsDto> body = response.getBody();
+            return body != null ? body : new ArrayList<>();
+        } catch (RestClientException ex) {
+            throw new StatsClientException("Ошибка вызова POST /stats/query: " + ex.getMessage(), ex);
         }
+    }
 
-        URI uri = builder.build(true).toUri(); // true -> кодировать компоненты URI
+    @Override
+    public Map<String, Long> getViews(List<String> uris, boolean unique) {
+        Assert.notNull(uris, "uris must not be null");
+        if (uris.isEmpty()) {
+            return new LinkedHashMap<>();
+        }
+
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path("/stats/lifetime")
+                .queryParam("unique", unique);
+        for (String u : uris) {
+            builder.queryParam("uris", u);
+        }
+        URI uri = builder.encode().build().toUri();
 
         try {
             ResponseEntity<List<ViewStatsDto>> response = restTemplate.exchange(
                     uri,
                     HttpMethod.GET,
-                    HttpEntity.EMPTY,
+                    new HttpEntity<>(acceptHeaders),
                     new ParameterizedTypeReference<List<ViewStatsDto>>() {}
             );
 
+            // Одному URI может соответствовать несколько приложений
+            Map<String, Long> views = new LinkedHashMap<>();
             List<ViewStatsDto> body = response.getBody();
-            return body != null ? body : new ArrayList<>();
+            if (body != null) {
+                body.stream()
+                        .filter(stat -> stat.getUri() != null && stat.getHits() != null)
+                        .forEach(stat -> views.merge(stat.getUri(), stat.getHits(), Long::sum));
+            }
+            return views;
         } catch (RestClientException ex) {
-            throw new StatsClientException("Ошибка вызова GET /stats: " + ex.getMessage(), ex);
+            throw new StatsClientException("Ошибка вызова GET /stats/lifetime: " + ex.getMessage(), ex);
+        }
+    }
+
+    @Override
+    public ViewChangesDto getViewChanges(long since, String uriPrefix, boolean unique) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path("/stats/changes")
+                .queryParam("since", since)
+                .queryParam("unique", unique);
+        if (uriPrefix != null) {
+            builder.queryParam("uriPrefix", uriPrefix);
+        }
+        URI uri = builder.encode().build().toUri();
+
+        try {
+            // Двоичный формат этот DTO не поддерживает, ответ всегда в JSON
+            ResponseEntity<ViewChangesDto> response = restTemplate.exchange(
+                    uri,
+                    HttpMethod.GET,
+                    null,
+                    ViewChangesDto.class
+            );
+
+            ViewChangesDto body = response.getBody();
+            return body != null ? body : new ViewChangesDto(since, new ArrayList<>());
+        } catch (RestClientException ex) {
+            throw new StatsClientException("Ошибка вызова GET /stats/changes: " + ex.getMessage(), ex);
         }
     }
+
+    private URI statsUri(String path, LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        UriComponentsBuilder builder = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path(path)
+                .queryParam("start", start.format(FORMATTER))
+                .queryParam("end", end.format(FORMATTER))
+                .queryParam("unique", unique);
+
+        if (uris != null && !uris.isEmpty()) {
+            for (String u : uris) {
+                builder.queryParam("uris", u);
+            }
+        }
+
+        return builder.encode().build().toUri(); // пробел в датах кодируется как %20
+    }
 }
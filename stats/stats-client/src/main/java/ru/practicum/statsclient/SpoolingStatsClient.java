@@ -0,0 +1,135 @@
+package ru.practicum.statsclient;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.util.Assert;
+import org.springframework.web.client.HttpClientErrorException;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.dto.ViewChangesDto;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.statsclient.autoconfigure.StatsClientProperties;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Декоратор StatsClient, сохраняющий неотправленные хиты в журнал на диске (HitSpool).
+ *
+ * Если отправка хитов завершилась ошибкой, они дописываются в журнал, а вызов завершается успешно;
+ * журнал отправляет их делегату, когда сервис статистики снова доступен. Ответы 4xx в журнал
+ * не попадают: повтор такого запроса ничего не изменит. Запросы статистики передаются делегату.
+ */
+public class SpoolingStatsClient implements StatsClient, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(SpoolingStatsClient.class);
+
+    private final StatsClient delegate;
+    private final HitSpool spool;
+
+    public SpoolingStatsClient(StatsClient delegate, StatsClientProperties.Spool props, MeterRegistry meterRegistry) {
+        Assert.notNull(delegate, "delegate must not be null");
+        this.delegate = delegate;
+        this.spool = new HitSpool(props, this::replay, meterRegistry);
+    }
+
+    public HitSpool getSpool() {
+        return spool;
+    }
+
+    @Override
+    public void hit(EndpointHitDto dto) {
+        Assert.notNull(dto, "EndpointHitDto must not be null");
+        try {
+            delegate.hit(dto);
+        } catch (RuntimeException e) {
+            if (isRejected(e)) {
+                throw e;
+            }
+            spool(List.of(dto), e);
+        }
+    }
+
+    @Override
+    public void hitAll(List<EndpointHitDto> dtos) {
+        Assert.notNull(dtos, "dtos must not be null");
+        try {
+            delegate.hitAll(dtos);
+        } catch (RuntimeException e) {
+            if (isRejected(e)) {
+                throw e;
+            }
+            spool(dtos, e);
+        }
+    }
+
+    @Override
+    public List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return delegate.getStats(start, end, uris, unique);
+    }
+
+    @Override
+    public Stream<ViewStatsDto> streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique) {
+        return delegate.streamStats(start, end, uris, unique);
+    }
+
+    @Override
+    public List<RangeStatsDto> queryStats(List<UriRangeDto> ranges, boolean unique) {
+        return delegate.queryStats(ranges, unique);
+    }
+
+    @Override
+    public ViewChangesDto getViewChanges(long since, String uriPrefix, boolean unique) {
+        return delegate.getViewChanges(since, uriPrefix, unique);
+    }
+
+    @Override
+    public Map<String, Long> getViews(List<String> uris, boolean unique) {
+        return delegate.getViews(uris, unique);
+    }
+
+    @Override
+    public void close() throws Exception {
+        spool.close();
+        if (delegate instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private void spool(List<EndpointHitDto> dtos, RuntimeException cause) {
+        int spooled = 0;
+        for (EndpointHitDto dto : dtos) {
+            if (spool.append(dto)) {
+                spooled++;
+            }
+        }
+        if (spooled < dtos.size()) {
+            log.error("Журнал хитов заполнен, потеряно {} хитов: {}", dtos.size() - spooled, cause.getMessage());
+        } else {
+            log.debug("Хиты ({}) сохранены в журнал: {}", spooled, cause.getMessage());
+        }
+    }
+
+    private void replay(List<EndpointHitDto> batch) {
+        try {
+            delegate.hitAll(batch);
+        } catch (RuntimeException e) {
+            if (!isRejected(e)) {
+                throw e;
+            }
+            // Пачку, отклонённую сервером, повторять бессмысленно
+            log.error("Сервис статистики отклонил {} хитов из журнала: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Ответ 4xx: RestStatsClient оборачивает HttpClientErrorException в StatsClientException.
+     */
+    private static boolean isRejected(RuntimeException e) {
+        return e instanceof HttpClientErrorException || e.getCause() instanceof HttpClientErrorException;
+    }
+}
@@ -1,10 +1,15 @@
 package ru.practicum.statsclient;
 
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.dto.ViewChangesDto;
 import ru.practicum.dto.ViewStatsDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 
 /**
  * HTTP клиент для сервиса статистики.
@@ -17,6 +22,13 @@ public interface StatsClient {
      */
     void hit(EndpointHitDto dto);
 
+    /**
+     * Отправляет пачку просмотров одним запросом.
+     *
+     * @param dtos информация о просмотрах
+     */
+    void hitAll(List<EndpointHitDto> dtos);
+
     /**
      * Запрашивает статистику за указанный период с опциональной фильтрацией по URI.
      *
@@ -27,4 +39,45 @@ public interface StatsClient {
      * @return список статистики просмотров
      */
     List<ViewStatsDto> getStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+
+    /**
+     * Запрашивает ту же статистику, что getStats, через GET /stats/stream: записи читаются из ответа
+     * по мере потребления потока, без загрузки всего результата в память.
+     * Поток держит HTTP-соединение и должен быть закрыт, например в try-with-resources.
+     *
+     * @param start  начало интервала
+     * @param end    конец интервала
+     * @param uris   список URI для фильтрации; может быть null или пустым для запроса всех данных
+     * @param unique учитывать только уникальные IP
+     * @return поток статистики просмотров в порядке убывания хитов
+     */
+    Stream<ViewStatsDto> streamStats(LocalDateTime start, LocalDateTime end, List<String> uris, boolean unique);
+
+    /**
+     * Запрашивает хиты каждого URI за его собственный интервал одним запросом (POST /stats/query).
+     *
+     * @param ranges URI с интервалами
+     * @param unique учитывать только уникальные IP
+     * @return по элементу на интервал в порядке ranges
+     */
+    List<RangeStatsDto> queryStats(List<UriRangeDto> ranges, boolean unique);
+
+    /**
+     * Запрашивает просмотры указанных URI за всё время.
+     *
+     * @param uris   список URI
+     * @param unique учитывать только уникальные IP
+     * @return число просмотров по URI; URI без просмотров в ответе отсутствуют
+     */
+    Map<String, Long> getViews(List<String> uris, boolean unique);
+
+    /**
+     * Запрашивает просмотры за всё время URI, по которым появились хиты после курсора (GET /stats/changes).
+     *
+     * @param since     курсор из предыдущего ответа; 0 — все URI
+     * @param uriPrefix только URI с этим префиксом; может быть null
+     * @param unique    учитывать только уникальные IP
+     * @return просмотры изменившихся URI по приложениям и курсор для следующего запроса
+     */
+    ViewChangesDto getViewChanges(long since, String uriPrefix, boolean unique);
 }
@@ -0,0 +1,16 @@
+package ru.practicum.statsclient;
+
+/**
+ * Формат тел запросов и ответов сервиса статистики.
+ */
+public enum WireFormat {
+    /**
+     * JSON.
+     */
+    JSON,
+
+    /**
+     * Двоичный формат StatsBinaryCodec (application/x-stats-binary); нужен сервер с его поддержкой.
+     */
+    BINARY
+}
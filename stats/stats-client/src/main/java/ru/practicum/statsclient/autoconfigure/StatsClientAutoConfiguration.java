@@ -1,5 +1,8 @@
 package ru.practicum.statsclient.autoconfigure;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
@@ -7,8 +10,16 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.web.client.RestTemplate;
+import ru.practicum.dto.binary.StatsBinaryHttpMessageConverter;
+import ru.practicum.statsclient.AsyncStatsClient;
+import ru.practicum.statsclient.CachingStatsClient;
+import ru.practicum.statsclient.CircuitBreakerStatsClient;
+import ru.practicum.statsclient.CoalescingStatsClient;
+import ru.practicum.statsclient.HitSpool;
 import ru.practicum.statsclient.RestStatsClient;
+import ru.practicum.statsclient.SpoolingStatsClient;
 import ru.practicum.statsclient.StatsClient;
+import ru.practicum.statsclient.WireFormat;
 
 import java.time.Duration;
 
@@ -19,16 +30,57 @@ public class StatsClientAutoConfiguration {
 
     @Bean
     @ConditionalOnMissingBean
-    public RestTemplate statsRestTemplate(RestTemplateBuilder builder, StatsClientProperties props) {
+    public StatsClientTransport statsClientTransport(StatsClientProperties props) {
+        return new StatsClientTransport(props);
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    public RestTemplate statsRestTemplate(RestTemplateBuilder builder,
+                                          StatsClientProperties props,
+                                          StatsClientTransport transport) {
+        if (props.getWireFormat() == WireFormat.BINARY) {
+            builder = builder.additionalMessageConverters(new StatsBinaryHttpMessageConverter());
+        }
+        if (transport.getRequestFactory() == null) {
+            return builder
+                    .setConnectTimeout(Duration.ofMillis(props.getConnectTimeoutMillis()))
+                    .setReadTimeout(Duration.ofMillis(props.getReadTimeoutMillis()))
+                    .build();
+        }
+        // Таймауты уже заданы в HTTP-клиенте транспорта
         return builder
-                .setConnectTimeout(Duration.ofMillis(props.getConnectTimeoutMillis()))
-                .setReadTimeout(Duration.ofMillis(props.getReadTimeoutMillis()))
+                .requestFactory(transport::getRequestFactory)
                 .build();
     }
 
     @Bean
     @ConditionalOnMissingBean(StatsClient.class)
-    public StatsClient statsClient(RestTemplate statsRestTemplate, StatsClientProperties props) {
-        return new RestStatsClient(statsRestTemplate, props.getBaseUrl());
+    public StatsClient statsClient(RestTemplate statsRestTemplate,
+                                   StatsClientProperties props,
+                                   ObjectProvider<MeterRegistry> meterRegistry) {
+        StatsClient client = new RestStatsClient(statsRestTemplate, props.getBaseUrl(), props.getWireFormat());
+        MeterRegistry registry = meterRegistry.getIfAvailable(() -> Metrics.globalRegistry);
+
+        if (props.getCircuitBreaker().isEnabled()) {
+            client = new CircuitBreakerStatsClient(client, props.getCircuitBreaker(), registry);
+        }
+        if (props.getCoalescing().isEnabled()) {
+            client = new CoalescingStatsClient(client, props.getCoalescing(), registry);
+        }
+        HitSpool spool = null;
+        if (props.getSpool().isEnabled()) {
+            SpoolingStatsClient spooling = new SpoolingStatsClient(client, props.getSpool(), registry);
+            spool = spooling.getSpool();
+            client = spooling;
+        }
+        if (props.getAsync().isEnabled()) {
+            client = new AsyncStatsClient(client, props.getAsync(), spool, registry);
+        }
+        // Снаружи асинхронной отправки, чтобы хиты учитывались в момент вызова hit, а не отправки
+        if (props.getViewCache().isEnabled()) {
+            client = new CachingStatsClient(client, props.getViewCache(), registry);
+        }
+        return client;
     }
 }
@@ -1,6 +1,9 @@
 package ru.practicum.statsclient.autoconfigure;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import ru.practicum.statsclient.HttpTransport;
+import ru.practicum.statsclient.OverflowPolicy;
+import ru.practicum.statsclient.WireFormat;
 
 @ConfigurationProperties(prefix = "stats.client")
 public class StatsClientProperties {
@@ -20,6 +23,41 @@ public class StatsClientProperties {
      */
     private Integer readTimeoutMillis = 5000;
 
+    /**
+     * Формат тел запросов и ответов: json или binary (application/x-stats-binary).
+     */
+    private WireFormat wireFormat = WireFormat.JSON;
+
+    /**
+     * HTTP-транспорт и пул соединений.
+     */
+    private Transport transport = new Transport();
+
+    /**
+     * Автоматический выключатель вызовов сервиса статистики.
+     */
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    /**
+     * Асинхронная отправка хитов.
+     */
+    private Async async = new Async();
+
+    /**
+     * Журнал неотправленных хитов на диске.
+     */
+    private Spool spool = new Spool();
+
+    /**
+     * Объединение одновременных одинаковых запросов статистики.
+     */
+    private Coalescing coalescing = new Coalescing();
+
+    /**
+     * Кэш просмотров URI с даты начала по текущий момент (queryStats).
+     */
+    private ViewCache viewCache = new ViewCache();
+
     public String getBaseUrl() {
         return baseUrl;
     }
@@ -43,4 +81,508 @@ public class StatsClientProperties {
     public void setReadTimeoutMillis(Integer readTimeoutMillis) {
         this.readTimeoutMillis = readTimeoutMillis;
     }
+
+    public WireFormat getWireFormat() {
+        return wireFormat;
+    }
+
+    public void setWireFormat(WireFormat wireFormat) {
+        this.wireFormat = wireFormat;
+    }
+
+    public Transport getTransport() {
+        return transport;
+    }
+
+    public void setTransport(Transport transport) {
+        this.transport = transport;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) {
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    public Async getAsync() {
+        return async;
+    }
+
+    public void setAsync(Async async) {
+        this.async = async;
+    }
+
+    public Spool getSpool() {
+        return spool;
+    }
+
+    public void setSpool(Spool spool) {
+        this.spool = spool;
+    }
+
+    public Coalescing getCoalescing() {
+        return coalescing;
+    }
+
+    public void setCoalescing(Coalescing coalescing) {
+        this.coalescing = coalescing;
+    }
+
+    public ViewCache getViewCache() {
+        return viewCache;
+    }
+
+    public void setViewCache(ViewCache viewCache) {
+        this.viewCache = viewCache;
+    }
+
+    public static class Transport {
+
+        /**
+         * simple — соединение на каждый запрос, apache — пул Apache HttpClient 5, jdk — java.net.http.HttpClient.
+         */
+        private HttpTransport type = HttpTransport.SIMPLE;
+
+        /**
+         * Максимальное количество соединений в пуле (apache).
+         */
+        private Integer maxConnections = 50;
+
+        /**
+         * Максимальное количество соединений к одному хосту (apache).
+         */
+        private Integer maxConnectionsPerRoute = 20;
+
+        /**
+         * Соединения, простаивающие дольше, закрываются фоновым потоком (мс, apache).
+         */
+        private Integer idleEvictionMillis = 30000;
+
+        /**
+         * Максимальное время повторного использования соединения, если сервер не прислал меньшее (мс, apache).
+         */
+        private Integer keepAliveMillis = 60000;
+
+        /**
+         * Соединение, простаивавшее дольше, проверяется перед повторным использованием (мс, apache).
+         */
+        private Integer validateAfterInactivityMillis = 2000;
+
+        /**
+         * Предлагать серверу HTTP/2 (jdk). Без TLS переход выполняется через Upgrade: h2c,
+         * если сервер его не поддерживает, используется HTTP/1.1.
+         */
+        private boolean http2 = true;
+
+        public HttpTransport getType() {
+            return type;
+        }
+
+        public void setType(HttpTransport type) {
+            this.type = type;
+        }
+
+        public Integer getMaxConnections() {
+            return maxConnections;
+        }
+
+        public void setMaxConnections(Integer maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        public Integer getMaxConnectionsPerRoute() {
+            return maxConnectionsPerRoute;
+        }
+
+        public void setMaxConnectionsPerRoute(Integer maxConnectionsPerRoute) {
+            this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+        }
+
+        public Integer getIdleEvictionMillis() {
+            return idleEvictionMillis;
+        }
+
+        public void setIdleEvictionMillis(Integer idleEvictionMillis) {
+            this.idleEvictionMillis = idleEvictionMillis;
+        }
+
+        public Integer getKeepAliveMillis() {
+            return keepAliveMillis;
+        }
+
+        public void setKeepAliveMillis(Integer keepAliveMillis) {
+            this.keepAliveMillis = keepAliveMillis;
+        }
+
+        public Integer getValidateAfterInactivityMillis() {
+            return validateAfterInactivityMillis;
+        }
+
+        public void setValidateAfterInactivityMillis(Integer validateAfterInactivityMillis) {
+            this.validateAfterInactivityMillis = validateAfterInactivityMillis;
+        }
+
+        public boolean isHttp2() {
+            return http2;
+        }
+
+        public void setHttp2(boolean http2) {
+            this.http2 = http2;
+        }
+    }
+
+    public static class CircuitBreaker {
+
+        /**
+         * Не обращаться к серверу после серии ошибок, отвечая последними известными значениями.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Количество последних вызовов, по которым считается доля ошибок.
+         */
+        private Integer windowSize = 20;
+
+        /**
+         * Минимальное количество вызовов в окне, после которого выключатель может разомкнуться.
+         */
+        private Integer minimumCalls = 10;
+
+        /**
+         * Доля ошибок в окне (%), при которой выключатель размыкается.
+         */
+        private Integer failureRateThreshold = 50;
+
+        /**
+         * Сколько выключатель остаётся разомкнутым перед пробными вызовами (мс).
+         */
+        private Integer openDurationMillis = 10000;
+
+        /**
+         * Количество пробных вызовов; успех всех замыкает выключатель.
+         */
+        private Integer halfOpenCalls = 3;
+
+        /**
+         * Сколько последних успешных ответов хранить для работы при разомкнутом выключателе.
+         */
+        private Integer fallbackMaximumSize = 10000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getWindowSize() {
+            return windowSize;
+        }
+
+        public void setWindowSize(Integer windowSize) {
+            this.windowSize = windowSize;
+        }
+
+        public Integer getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        public void setMinimumCalls(Integer minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        public Integer getFailureRateThreshold() {
+            return failureRateThreshold;
+        }
+
+        public void setFailureRateThreshold(Integer failureRateThreshold) {
+            this.failureRateThreshold = failureRateThreshold;
+        }
+
+        public Integer getOpenDurationMillis() {
+            return openDurationMillis;
+        }
+
+        public void setOpenDurationMillis(Integer openDurationMillis) {
+            this.openDurationMillis = openDurationMillis;
+        }
+
+        public Integer getHalfOpenCalls() {
+            return halfOpenCalls;
+        }
+
+        public void setHalfOpenCalls(Integer halfOpenCalls) {
+            this.halfOpenCalls = halfOpenCalls;
+        }
+
+        public Integer getFallbackMaximumSize() {
+            return fallbackMaximumSize;
+        }
+
+        public void setFallbackMaximumSize(Integer fallbackMaximumSize) {
+            this.fallbackMaximumSize = fallbackMaximumSize;
+        }
+    }
+
+    public static class Async {
+
+        /**
+         * Отправлять хиты в фоне, не блокируя поток запроса.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Максимальное количество хитов в очереди.
+         */
+        private Integer queueCapacity = 10000;
+
+        /**
+         * Максимальное количество хитов в одном запросе POST /hits.
+         */
+        private Integer batchSize = 100;
+
+        /**
+         * Максимальная задержка отправки неполной пачки (мс).
+         */
+        private Integer flushIntervalMillis = 500;
+
+        /**
+         * Что делать с хитом, если очередь заполнена.
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+        /**
+         * Количество повторных попыток отправки пачки.
+         */
+        private Integer maxRetries = 3;
+
+        /**
+         * Пауза между повторными попытками (мс), удваивается с каждой попыткой.
+         */
+        private Integer retryBackoffMillis = 200;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(Integer queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public Integer getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(Integer batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public Integer getFlushIntervalMillis() {
+            return flushIntervalMillis;
+        }
+
+        public void setFlushIntervalMillis(Integer flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public Integer getMaxRetries() {
+            return maxRetries;
+        }
+
+        public void setMaxRetries(Integer maxRetries) {
+            this.maxRetries = maxRetries;
+        }
+
+        public Integer getRetryBackoffMillis() {
+            return retryBackoffMillis;
+        }
+
+        public void setRetryBackoffMillis(Integer retryBackoffMillis) {
+            this.retryBackoffMillis = retryBackoffMillis;
+        }
+    }
+
+    public static class Spool {
+
+        /**
+         * Сохранять хиты, которые не удалось отправить, в журнал и отправлять их повторно.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Каталог сегментов журнала; у каждого экземпляра приложения должен быть свой.
+         */
+        private String directory = "stats-spool";
+
+        /**
+         * Размер одного сегмента (байт).
+         */
+        private Integer segmentSizeBytes = 16 * 1024 * 1024;
+
+        /**
+         * Максимальное число сегментов; при заполнении новые хиты отбрасываются.
+         */
+        private Integer maxSegments = 8;
+
+        /**
+         * Максимальный размер пачки повторной отправки.
+         */
+        private Integer replayBatchSize = 100;
+
+        /**
+         * Интервал проверки журнала и пауза после ошибки отправки (мс).
+         */
+        private Integer replayIntervalMillis = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Integer getSegmentSizeBytes() {
+            return segmentSizeBytes;
+        }
+
+        public void setSegmentSizeBytes(Integer segmentSizeBytes) {
+            this.segmentSizeBytes = segmentSizeBytes;
+        }
+
+        public Integer getMaxSegments() {
+            return maxSegments;
+        }
+
+        public void setMaxSegments(Integer maxSegments) {
+            this.maxSegments = maxSegments;
+        }
+
+        public Integer getReplayBatchSize() {
+            return replayBatchSize;
+        }
+
+        public void setReplayBatchSize(Integer replayBatchSize) {
+            this.replayBatchSize = replayBatchSize;
+        }
+
+        public Integer getReplayIntervalMillis() {
+            return replayIntervalMillis;
+        }
+
+        public void setReplayIntervalMillis(Integer replayIntervalMillis) {
+            this.replayIntervalMillis = replayIntervalMillis;
+        }
+    }
+
+    public static class Coalescing {
+
+        /**
+         * Выполнять одновременные одинаковые GET /stats, POST /stats/query и GET /stats/lifetime одним HTTP-запросом.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Шаг округления интервала запроса (мс): начало округляется вниз, конец вверх.
+         */
+        private Integer rangeRoundingMillis = 1000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getRangeRoundingMillis() {
+            return rangeRoundingMillis;
+        }
+
+        public void setRangeRoundingMillis(Integer rangeRoundingMillis) {
+            this.rangeRoundingMillis = rangeRoundingMillis;
+        }
+    }
+
+    public static class ViewCache {
+
+        /**
+         * Отдавать просмотры из кэша с прибавкой хитов, отправленных через этот клиент.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Максимальное количество URI в кэше.
+         */
+        private Integer maximumSize = 10000;
+
+        /**
+         * Через сколько после загрузки значение обновляется в фоне при следующем чтении (мс).
+         */
+        private Integer refreshAfterWriteMillis = 5000;
+
+        /**
+         * Через сколько после загрузки значение удаляется и загружается заново при чтении (мс).
+         */
+        private Integer expireAfterWriteMillis = 60000;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public Integer getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(Integer maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public Integer getRefreshAfterWriteMillis() {
+            return refreshAfterWriteMillis;
+        }
+
+        public void setRefreshAfterWriteMillis(Integer refreshAfterWriteMillis) {
+            this.refreshAfterWriteMillis = refreshAfterWriteMillis;
+        }
+
+        public Integer getExpireAfterWriteMillis() {
+            return expireAfterWriteMillis;
+        }
+
+        public void setExpireAfterWriteMillis(Integer expireAfterWriteMillis) {
+            this.expireAfterWriteMillis = expireAfterWriteMillis;
+        }
+    }
 }
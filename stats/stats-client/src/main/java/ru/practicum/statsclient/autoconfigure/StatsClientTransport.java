@@ -0,0 +1,111 @@
+package ru.practicum.statsclient.autoconfigure;
+
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import ru.practicum.statsclient.HttpTransport;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Фабрика запросов RestTemplate для выбранного транспорта; закрывает созданный HTTP-клиент при остановке.
+ */
+public class StatsClientTransport implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StatsClientTransport.class);
+
+    private final HttpTransport type;
+    private final ClientHttpRequestFactory requestFactory;
+    private final AutoCloseable httpClient;
+
+    public StatsClientTransport(StatsClientProperties props) {
+        this.type = props.getTransport().getType();
+        switch (type) {
+            case APACHE -> {
+                CloseableHttpClient client = apacheClient(props);
+                this.httpClient = client;
+                this.requestFactory = new HttpComponentsClientHttpRequestFactory(client);
+            }
+            case JDK -> {
+                HttpClient client = jdkClient(props);
+                JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(client);
+                factory.setReadTimeout(Duration.ofMillis(props.getReadTimeoutMillis()));
+                this.httpClient = client;
+                this.requestFactory = factory;
+            }
+            default -> {
+                this.httpClient = null;
+                this.requestFactory = null;
+            }
+        }
+    }
+
+    public HttpTransport getType() {
+        return type;
+    }
+
+    /**
+     * Фабрика запросов или null для SIMPLE, когда RestTemplate использует фабрику по умолчанию.
+     */
+    public ClientHttpRequestFactory getRequestFactory() {
+        return requestFactory;
+    }
+
+    @Override
+    public void close() {
+        if (httpClient == null) {
+            return;
+        }
+        try {
+            httpClient.close();
+        } catch (Exception e) {
+            log.warn("Ошибка закрытия HTTP-клиента статистики: {}", e.getMessage());
+        }
+    }
+
+    private static CloseableHttpClient apacheClient(StatsClientProperties props) {
+        StatsClientProperties.Transport transport = props.getTransport();
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(transport.getMaxConnections())
+                .setMaxConnPerRoute(transport.getMaxConnectionsPerRoute())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofMilliseconds(props.getConnectTimeoutMillis()))
+                        .setSocketTimeout(Timeout.ofMilliseconds(props.getReadTimeoutMillis()))
+                        .setValidateAfterInactivity(TimeValue.ofMilliseconds(transport.getValidateAfterInactivityMillis()))
+                        .build())
+                .build();
+
+        // Keep-Alive сервера учитывается, но не дольше keepAliveMillis
+        TimeValue maxKeepAlive = TimeValue.ofMilliseconds(transport.getKeepAliveMillis());
+        ConnectionKeepAliveStrategy keepAlive = (response, context) -> {
+            TimeValue offered = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return TimeValue.isPositive(offered) && offered.compareTo(maxKeepAlive) < 0 ? offered : maxKeepAlive;
+        };
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setKeepAliveStrategy(keepAlive)
+                .evictExpiredConnections()
+                .evictIdleConnections(TimeValue.ofMilliseconds(transport.getIdleEvictionMillis()))
+                .build();
+    }
+
+    private static HttpClient jdkClient(StatsClientProperties props) {
+        return HttpClient.newBuilder()
+                .version(props.getTransport().isHttp2() ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(props.getConnectTimeoutMillis()))
+                .build();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.practicum.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Тело POST /stats/query: интервалы по URI и учёт только уникальных IP.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsQueryDto {
+    private List<UriRangeDto> ranges;
+    private boolean unique;
+}
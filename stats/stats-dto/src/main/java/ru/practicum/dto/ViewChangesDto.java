@@ -0,0 +1,18 @@
+package ru.practicum.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Ответ GET /stats/changes: просмотры за всё время URI, по которым появились хиты после курсора,
+ * и курсор для следующего запроса.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ViewChangesDto {
+    private Long cursor;
+    private List<ViewStatsDto> stats;
+}
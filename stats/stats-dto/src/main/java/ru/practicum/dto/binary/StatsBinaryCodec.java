@@ -0,0 +1,243 @@
+package ru.practicum.dto.binary;
+
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Компактный двоичный формат EndpointHitDto и ViewStatsDto (application/x-stats-binary).
+ *
+ * Сообщение начинается с байта версии, список — с числа элементов. Числа записываются как varint
+ * (zigzag, 0 — null), timestamp — секундами и наносекундами без разбора строк.
+ * Строка: 0 — null, 1 — то же значение, что в этом поле у предыдущего элемента списка,
+ * n + 2 — n байт UTF-8; так повторяющиеся app и uri занимают один байт.
+ */
+public final class StatsBinaryCodec {
+
+    public static final String MEDIA_TYPE = "application/x-stats-binary";
+
+    private static final byte VERSION = 1;
+    private static final int NULL = 0;
+    private static final int REPEAT = 1;
+
+    private StatsBinaryCodec() {
+    }
+
+    public static byte[] encodeHit(EndpointHitDto dto) {
+        Writer writer = new Writer(64);
+        writer.writeHit(dto, null);
+        return writer.toByteArray();
+    }
+
+    public static EndpointHitDto decodeHit(byte[] bytes) {
+        Reader reader = new Reader(bytes);
+        EndpointHitDto dto = reader.readHit(null);
+        reader.checkEnd();
+        return dto;
+    }
+
+    public static byte[] encodeHits(List<EndpointHitDto> dtos) {
+        Writer writer = new Writer(16 + dtos.size() * 48);
+        writer.writeVarLong(dtos.size());
+        EndpointHitDto previous = null;
+        for (EndpointHitDto dto : dtos) {
+            writer.writeHit(dto, previous);
+            previous = dto;
+        }
+        return writer.toByteArray();
+    }
+
+    public static List<EndpointHitDto> decodeHits(byte[] bytes) {
+        Reader reader = new Reader(bytes);
+        int size = reader.readSize();
+        List<EndpointHitDto> dtos = new ArrayList<>(size);
+        EndpointHitDto previous = null;
+        for (int i = 0; i < size; i++) {
+            previous = reader.readHit(previous);
+            dtos.add(previous);
+        }
+        reader.checkEnd();
+        return dtos;
+    }
+
+    public static byte[] encodeStats(List<ViewStatsDto> stats) {
+        Writer writer = new Writer(16 + stats.size() * 24);
+        writer.writeVarLong(stats.size());
+        ViewStatsDto previous = null;
+        for (ViewStatsDto stat : stats) {
+            writer.writeString(stat.getApp(), previous == null ? null : previous.getApp(), previous != null);
+            writer.writeString(stat.getUri(), previous == null ? null : previous.getUri(), previous != null);
+            writer.writeLong(stat.getHits());
+            previous = stat;
+        }
+        return writer.toByteArray();
+    }
+
+    public static List<ViewStatsDto> decodeStats(byte[] bytes) {
+        Reader reader = new Reader(bytes);
+        int size = reader.readSize();
+        List<ViewStatsDto> stats = new ArrayList<>(size);
+        ViewStatsDto previous = null;
+        for (int i = 0; i < size; i++) {
+            String app = reader.readString(previous == null ? null : previous.getApp());
+            String uri = reader.readString(previous == null ? null : previous.getUri());
+            previous = new ViewStatsDto(app, uri, reader.readLong());
+            stats.add(previous);
+        }
+        reader.checkEnd();
+        return stats;
+    }
+
+    private static final class Writer {
+
+        private byte[] buffer;
+        private int position;
+
+        Writer(int capacity) {
+            buffer = new byte[capacity];
+            buffer[position++] = VERSION;
+        }
+
+        void writeHit(EndpointHitDto dto, EndpointHitDto previous) {
+            boolean repeatable = previous != null;
+            writeLong(dto.getId());
+            writeString(dto.getApp(), repeatable ? previous.getApp() : null, repeatable);
+            writeString(dto.getUri(), repeatable ? previous.getUri() : null, repeatable);
+            writeString(dto.getIp(), repeatable ? previous.getIp() : null, repeatable);
+            LocalDateTime timestamp = dto.getTimestamp();
+            if (timestamp == null) {
+                writeVarLong(NULL);
+            } else {
+                writeVarLong(timestamp.getNano() + 1L);
+                writeVarLong(zigzag(timestamp.toEpochSecond(ZoneOffset.UTC)));
+            }
+        }
+
+        void writeLong(Long value) {
+            writeVarLong(value == null ? NULL : zigzag(value) + 1);
+        }
+
+        void writeString(String value, String previous, boolean repeatable) {
+            if (value == null) {
+                writeVarLong(NULL);
+            } else if (repeatable && value.equals(previous)) {
+                writeVarLong(REPEAT);
+            } else {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(bytes.length + 2L);
+                ensure(bytes.length);
+                System.arraycopy(bytes, 0, buffer, position, bytes.length);
+                position += bytes.length;
+            }
+        }
+
+        void writeVarLong(long value) {
+            ensure(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensure(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+
+        private static long zigzag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    private static final class Reader {
+
+        private final byte[] buffer;
+        private int position;
+
+        Reader(byte[] buffer) {
+            this.buffer = buffer;
+            if (buffer.length == 0 || buffer[position++] != VERSION) {
+                throw new IllegalArgumentException("Неподдерживаемая версия двоичного формата статистики");
+            }
+        }
+
+        EndpointHitDto readHit(EndpointHitDto previous) {
+            Long id = readLong();
+            String app = readString(previous == null ? null : previous.getApp());
+            String uri = readString(previous == null ? null : previous.getUri());
+            String ip = readString(previous == null ? null : previous.getIp());
+            long nanos = readVarLong();
+            LocalDateTime timestamp = nanos == NULL ? null
+                    : LocalDateTime.ofEpochSecond(unzigzag(readVarLong()), (int) (nanos - 1), ZoneOffset.UTC);
+            return new EndpointHitDto(id, app, uri, ip, timestamp);
+        }
+
+        Long readLong() {
+            long value = readVarLong();
+            return value == NULL ? null : unzigzag(value - 1);
+        }
+
+        String readString(String previous) {
+            long tag = readVarLong();
+            if (tag == NULL) {
+                return null;
+            }
+            if (tag == REPEAT) {
+                return previous;
+            }
+            int length = (int) (tag - 2);
+            check(length);
+            String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+
+        int readSize() {
+            long size = readVarLong();
+            // Каждый элемент занимает хотя бы байт, иначе размер заведомо неверен
+            check(size);
+            return (int) size;
+        }
+
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                check(1);
+                byte b = buffer[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Некорректное число в двоичном формате статистики");
+        }
+
+        void checkEnd() {
+            if (position != buffer.length) {
+                throw new IllegalArgumentException("Лишние данные в конце сообщения статистики");
+            }
+        }
+
+        private void check(long length) {
+            if (length < 0 || length > buffer.length - position) {
+                throw new IllegalArgumentException("Сообщение статистики обрезано");
+            }
+        }
+
+        private static long unzigzag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
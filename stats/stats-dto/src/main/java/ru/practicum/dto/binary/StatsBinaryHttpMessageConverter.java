@@ -0,0 +1,113 @@
+package ru.practicum.dto.binary;
+
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.ViewStatsDto;
+
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * HttpMessageConverter формата StatsBinaryCodec для EndpointHitDto, List&lt;EndpointHitDto&gt;
+ * и List&lt;ViewStatsDto&gt;.
+ *
+ * Регистрируется после Jackson: клиенты, не указавшие application/x-stats-binary в Accept
+ * или Content-Type, по-прежнему получают JSON.
+ */
+public class StatsBinaryHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType(StatsBinaryCodec.MEDIA_TYPE);
+
+    private enum Kind {
+        HIT, HITS, STATS, LIST
+    }
+
+    public StatsBinaryHttpMessageConverter() {
+        super(MEDIA_TYPE);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return EndpointHitDto.class == clazz || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        Kind kind = kind(type);
+        // Для чтения списка нужен тип элементов
+        return kind != null && kind != Kind.LIST && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return kind(type != null ? type : clazz) != null && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        byte[] bytes = inputMessage.getBody().readAllBytes();
+        try {
+            return switch (kind(type)) {
+                case HIT -> StatsBinaryCodec.decodeHit(bytes);
+                case HITS -> StatsBinaryCodec.decodeHits(bytes);
+                case STATS -> StatsBinaryCodec.decodeStats(bytes);
+                case LIST -> throw new IllegalArgumentException("Тип элементов списка неизвестен");
+            };
+        } catch (IllegalArgumentException e) {
+            throw new HttpMessageNotReadableException(e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return read(clazz, null, inputMessage);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        byte[] bytes;
+        if (value instanceof EndpointHitDto dto) {
+            bytes = StatsBinaryCodec.encodeHit(dto);
+        } else if (value instanceof List<?> list && list.stream().allMatch(EndpointHitDto.class::isInstance)) {
+            // Пустые списки хитов и статистики кодируются одинаково
+            bytes = StatsBinaryCodec.encodeHits((List<EndpointHitDto>) list);
+        } else if (value instanceof List<?> list && list.stream().allMatch(ViewStatsDto.class::isInstance)) {
+            bytes = StatsBinaryCodec.encodeStats((List<ViewStatsDto>) list);
+        } else {
+            throw new HttpMessageNotWritableException("Тип не поддерживается форматом " + MEDIA_TYPE + ": "
+                    + value.getClass().getName());
+        }
+        outputMessage.getHeaders().setContentLength(bytes.length);
+        outputMessage.getBody().write(bytes);
+    }
+
+    private static Kind kind(Type type) {
+        if (type instanceof Class<?> clazz) {
+            if (clazz == EndpointHitDto.class) {
+                return Kind.HIT;
+            }
+            return List.class.isAssignableFrom(clazz) ? Kind.LIST : null;
+        }
+        if (type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw
+                && raw.isAssignableFrom(List.class)
+                && parameterized.getActualTypeArguments().length == 1) {
+            Type element = parameterized.getActualTypeArguments()[0];
+            if (element == EndpointHitDto.class) {
+                return Kind.HITS;
+            }
+            if (element == ViewStatsDto.class) {
+                return Kind.STATS;
+            }
+        }
+        return null;
+    }
+}
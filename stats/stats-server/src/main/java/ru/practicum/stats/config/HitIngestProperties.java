@@ -0,0 +1,55 @@
+package ru.practicum.stats.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки приёма хитов (POST /hit).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.ingest")
+public class HitIngestProperties {
+
+    /**
+     * Режим записи: DIRECT — INSERT на каждый запрос, BUFFERED — через кольцевой буфер и пакетную запись.
+     */
+    private IngestMode mode = IngestMode.DIRECT;
+
+    /**
+     * Ёмкость буфера (количество хитов).
+     */
+    private Integer bufferCapacity = 65536;
+
+    /**
+     * Максимальное количество строк в одном пакетном INSERT.
+     */
+    private Integer batchSize = 500;
+
+    /**
+     * Максимальное время ожидания заполнения пакета перед записью (мс).
+     */
+    private Integer flushIntervalMillis = 200;
+
+    /**
+     * Сколько ждать свободного места в заполненном буфере (мс).
+     * Если место не освободилось, хит записывается синхронно в потоке запроса.
+     */
+    private Integer offerTimeoutMillis = 50;
+
+    /**
+     * Сколько раз повторять запись пакета после ошибки базы данных; затем пакет считается потерянным.
+     */
+    private Integer flushRetries = 3;
+
+    /**
+     * Пауза перед первым повтором записи пакета (мс); перед каждым следующим удваивается.
+     */
+    private Integer retryBackoffMillis = 500;
+
+    public enum IngestMode {
+        DIRECT,
+        BUFFERED
+    }
+}
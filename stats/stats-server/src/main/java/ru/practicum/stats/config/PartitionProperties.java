@@ -0,0 +1,65 @@
+package ru.practicum.stats.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Настройки секционирования таблицы endpoint_hits по времени.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.partition")
+public class PartitionProperties {
+
+    /**
+     * Размер секции: DAY — сутки, MONTH — календарный месяц.
+     */
+    private PartitionInterval interval = PartitionInterval.MONTH;
+
+    /**
+     * Сколько секций создавать заранее, начиная со следующей за текущей.
+     */
+    private Integer precreate = 2;
+
+    /**
+     * Сколько последних секций хранить, включая текущую; более старые удаляются целиком.
+     * 0 — хранить всё.
+     */
+    private Integer retention = 0;
+
+    /**
+     * Период обслуживания секций (создание новых, перенос из секции по умолчанию, удаление старых).
+     */
+    private Long maintenanceIntervalMillis = 3_600_000L;
+
+    public enum PartitionInterval {
+        DAY(ChronoUnit.DAYS),
+        MONTH(ChronoUnit.MONTHS);
+
+        private final ChronoUnit unit;
+
+        PartitionInterval(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        public LocalDateTime floor(LocalDateTime time) {
+            LocalDateTime day = time.truncatedTo(ChronoUnit.DAYS);
+            return this == MONTH ? day.withDayOfMonth(1) : day;
+        }
+
+        public LocalDateTime plus(LocalDateTime start, long amount) {
+            return start.plus(amount, unit);
+        }
+
+        /**
+         * Единица для date_trunc в PostgreSQL.
+         */
+        public String sqlUnit() {
+            return name().toLowerCase();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.stats.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки проверки планов запросов статистики при старте.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.plan-check")
+public class QueryPlanCheckProperties {
+
+    private boolean enabled = true;
+
+    /**
+     * Проверять только при оценке не меньше стольких строк в endpoint_hits:
+     * на маленькой таблице последовательное чтение — нормальный выбор планировщика.
+     */
+    private Long minTableRows = 10_000L;
+
+    /**
+     * Останавливать запуск, если для запроса запланирован Seq Scan, вместо предупреждения в логе.
+     */
+    private boolean failOnSeqScan = false;
+}
@@ -0,0 +1,20 @@
+package ru.practicum.stats.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки предагрегированной статистики (таблица endpoint_rollups).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.rollup")
+public class RollupProperties {
+
+    /**
+     * Вести счётчики по минутам/часам/суткам при записи хитов и использовать их в GET /stats (unique=false).
+     * Хиты, записанные при выключенных агрегатах, досчитываются при следующем старте с включёнными.
+     */
+    private boolean enabled = true;
+}
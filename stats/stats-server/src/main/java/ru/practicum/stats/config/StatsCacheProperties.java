@@ -0,0 +1,32 @@
+package ru.practicum.stats.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки кэша результатов GET /stats.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.cache")
+public class StatsCacheProperties {
+
+    private boolean enabled = false;
+
+    /**
+     * Максимальное число закэшированных запросов; вытеснение — W-TinyLFU (Caffeine).
+     */
+    private Long maximumSize = 10_000L;
+
+    /**
+     * Время жизни результата; ограничивает устаревание, если дозапись новых хитов не сработала.
+     */
+    private Long ttlMillis = 60_000L;
+
+    /**
+     * Шаг округления start (вниз) и end (вверх) в ключе кэша. Запросы с end=now в пределах
+     * одного шага попадают в один ключ, а статистика считается по округлённым границам.
+     */
+    private Long bucketSeconds = 60L;
+}
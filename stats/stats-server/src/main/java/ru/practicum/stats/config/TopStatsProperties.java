@@ -0,0 +1,34 @@
+package ru.practicum.stats.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки самых просматриваемых URI (GET /stats/top).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.top")
+public class TopStatsProperties {
+
+    /**
+     * Вести сводки Space-Saving при записи хитов. Если выключено, GET /stats/top всегда считается SQL-запросом.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Длина интервала одной сводки (мин); границы запроса расширяются до интервалов.
+     */
+    private Integer bucketMinutes = 10;
+
+    /**
+     * Число счётчиков в сводке одного интервала; точность тем выше, чем больше capacity по сравнению с limit.
+     */
+    private Integer capacity = 1000;
+
+    /**
+     * Сколько часов хранить сводки; более ранние запросы считаются SQL-запросом.
+     */
+    private Integer retentionHours = 24;
+}
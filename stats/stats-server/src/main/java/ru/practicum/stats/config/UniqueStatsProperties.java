@@ -0,0 +1,38 @@
+package ru.practicum.stats.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки подсчёта уникальных посещений (GET /stats?unique=true).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.unique")
+public class UniqueStatsProperties {
+
+    /**
+     * EXACT — COUNT(DISTINCT ip) по сырым хитам,
+     * APPROXIMATE — слияние скетчей HyperLogLog по часам и суткам.
+     */
+    private UniqueMode mode = UniqueMode.EXACT;
+
+    /**
+     * Допустимая относительная погрешность в режиме APPROXIMATE (стандартная ошибка HyperLogLog).
+     * При 0.01 скетч занимает 16 КБ (2^14 регистров) на (app, uri) и час или сутки.
+     */
+    private Double relativeError = 0.01;
+
+    /**
+     * Наибольшая длина интервала (в сутках от первого хранимого хита) для режима APPROXIMATE.
+     * Первый запрос по интервалу строит скетчи всех его закрытых суток, поэтому более длинные
+     * интервалы считаются точно.
+     */
+    private Integer maxApproximateDays = 366;
+
+    public enum UniqueMode {
+        EXACT,
+        APPROXIMATE
+    }
+}
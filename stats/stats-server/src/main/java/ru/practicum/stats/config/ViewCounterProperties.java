@@ -0,0 +1,35 @@
+package ru.practicum.stats.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Настройки счётчиков просмотров за всё время (GET /stats/lifetime).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "stats.counters")
+public class ViewCounterProperties {
+
+    /**
+     * Вести счётчики в памяти при записи хитов. Если выключено, GET /stats/lifetime
+     * считается обычным запросом статистики по всему периоду.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Период сохранения счётчиков в endpoint_counters.
+     */
+    private Long checkpointIntervalMillis = 60_000L;
+
+    /**
+     * До стольких уникальных IP на URI считаются точно, дальше — скетчем HyperLogLog.
+     */
+    private Integer exactVisitorsLimit = 256;
+
+    /**
+     * Стандартная ошибка скетча уникальных IP; 0.02 — 4 КиБ на URI.
+     */
+    private Double relativeError = 0.02;
+}
@@ -0,0 +1,23 @@
+package ru.practicum.stats.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.dto.binary.StatsBinaryHttpMessageConverter;
+
+import java.util.List;
+
+/**
+ * Двоичный формат хитов и статистики (application/x-stats-binary) наряду с JSON.
+ *
+ * Конвертер добавляется в конец списка, поэтому выбирается только по явному
+ * Content-Type или Accept; ответ на Accept: *&#47;* остаётся в JSON.
+ */
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new StatsBinaryHttpMessageConverter());
+    }
+}
@@ -1,14 +1,25 @@
 package ru.practicum.stats.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.StatsQueryDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.dto.ViewChangesDto;
 import ru.practicum.dto.ViewStatsDto;
 import ru.practicum.stats.service.StatsService;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -17,7 +28,12 @@ import java.util.List;
 @RequestMapping
 public class StatsController {
 
+    public static final String NDJSON = "application/x-ndjson";
+    public static final int MAX_TOP_LIMIT = 1000;
+    public static final int MAX_QUERY_RANGES = 1000;
+
     private final StatsService statsService;
+    private final ObjectMapper objectMapper;
 
     /**
      * Сохранение информации о хите.
@@ -29,6 +45,15 @@ public class StatsController {
         statsService.saveHit(dto);
     }
 
+    /**
+     * Пакетное сохранение хитов одной транзакцией.
+     */
+    @PostMapping("/hits")
+    @ResponseStatus(HttpStatus.CREATED)
+    public void saveHits(@RequestBody List<EndpointHitDto> dtos) {
+        statsService.saveHits(dtos);
+    }
+
     /**
      * Получение статистики. Поддерживает фильтрацию по списку URI и учёт уникальных IP.
      * Значения параметров start/end ожидаются в формате "yyyy-MM-dd HH:mm:ss" и должны быть закодированы в URL.
@@ -53,4 +78,141 @@ public class StatsController {
         }
         return statsService.getStats(start, end, unique, uris);
     }
-}
\ No newline at end of file
+
+    /**
+     * Та же статистика, что GET /stats, построчно в NDJSON (одна запись ViewStatsDto на строку).
+     * Строки читаются из БД курсором и сразу пишутся в ответ, поэтому память сервера
+     * не зависит от числа URI в результате.
+     */
+    @GetMapping(value = "/stats/stream", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamStats(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+            LocalDateTime start,
+
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+            LocalDateTime end,
+
+            @RequestParam(required = false)
+            List<String> uris,
+
+            @RequestParam(defaultValue = "false")
+            boolean unique
+    ) {
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Параметр end не может быть раньше start");
+        }
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+                // Записи разделяются только переводом строки, без пробела между корневыми значениями
+                generator.setRootValueSeparator(null);
+                statsService.streamStats(start, end, unique, uris, stat -> {
+                    try {
+                        generator.writeObject(stat);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    /**
+     * Самые просматриваемые URI за период, не больше limit (1..MAX_TOP_LIMIT).
+     * Фильтры: app — имя приложения, uriPrefix — начало URI. По умолчанию ответ строится по сводкам
+     * Space-Saving (stats.top) и может быть приблизительным; exact=true — точный SQL-запрос с LIMIT.
+     */
+    @GetMapping("/stats/top")
+    public List<ViewStatsDto> getTopStats(
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+            LocalDateTime start,
+
+            @RequestParam @DateTimeFormat(pattern = "yyyy-MM-dd HH:mm:ss")
+            LocalDateTime end,
+
+            @RequestParam(defaultValue = "10")
+            int limit,
+
+            @RequestParam(defaultValue = "false")
+            boolean unique,
+
+            @RequestParam(required = false)
+            String app,
+
+            @RequestParam(required = false)
+            String uriPrefix,
+
+            @RequestParam(defaultValue = "false")
+            boolean exact
+    ) {
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Параметр end не может быть раньше start");
+        }
+        if (limit < 1 || limit > MAX_TOP_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Параметр limit должен быть от 1 до " + MAX_TOP_LIMIT);
+        }
+        return statsService.getTopStats(start, end, limit, unique, app, uriPrefix, exact);
+    }
+
+    /**
+     * Хиты по списку (uri, start, end) с собственным интервалом у каждого URI, одним запросом к БД.
+     * Ответ — по элементу на интервал в порядке запроса; не больше MAX_QUERY_RANGES интервалов.
+     */
+    @PostMapping("/stats/query")
+    public List<RangeStatsDto> queryStats(@RequestBody StatsQueryDto query) {
+        List<UriRangeDto> ranges = query.getRanges();
+        if (ranges == null || ranges.isEmpty()) {
+            return List.of();
+        }
+        if (ranges.size() > MAX_QUERY_RANGES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Не больше " + MAX_QUERY_RANGES + " интервалов в запросе");
+        }
+        for (UriRangeDto range : ranges) {
+            if (range == null || range.getUri() == null || range.getStart() == null || range.getEnd() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "У каждого интервала должны быть uri, start и end");
+            }
+            if (range.getEnd().isBefore(range.getStart())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Параметр end не может быть раньше start: " + range.getUri());
+            }
+        }
+        return statsService.queryStats(ranges, query.isUnique());
+    }
+
+    /**
+     * Просмотры за всё время. При включённых stats.counters отвечает из счётчиков в памяти, не обращаясь к БД.
+     */
+    @GetMapping("/stats/lifetime")
+    public List<ViewStatsDto> getLifetimeStats(
+            @RequestParam(required = false)
+            List<String> uris,
+
+            @RequestParam(defaultValue = "false")
+            boolean unique
+    ) {
+        return statsService.getLifetimeStats(uris, unique);
+    }
+
+    /**
+     * Просмотры за всё время URI, по которым появились хиты после курсора since (id хита).
+     * В ответе — новый курсор; since = 0 возвращает все URI.
+     */
+    @GetMapping("/stats/changes")
+    public ViewChangesDto getViewChanges(
+            @RequestParam(defaultValue = "0")
+            long since,
+
+            @RequestParam(required = false)
+            String uriPrefix,
+
+            @RequestParam(defaultValue = "false")
+            boolean unique
+    ) {
+        if (since < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Параметр since не может быть отрицательным");
+        }
+        return statsService.getViewChanges(since, uriPrefix, unique);
+    }
+}
@@ -15,14 +15,23 @@ public class EndpointHit {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    @Column(nullable = false)
+    // Ключи справочников endpoint_apps и endpoint_uris
+    @Column(name = "app_id", nullable = false)
+    private Integer appId;
+
+    @Column(name = "uri_id", nullable = false)
+    private Integer uriId;
+
+    // Строковые значения хранятся только в справочниках; в хите заполняются при приёме
+    @Transient
     private String app;
 
-    @Column(nullable = false, length = 1024)
+    @Transient
     private String uri;
 
-    @Column(nullable = false, length = 64)
-    private String ip;
+    // IPv4 — 4 байта, IPv6 — 16 байт, см. IpAddress
+    @Column(nullable = false)
+    private byte[] ip;
 
     @Column(nullable = false)
     private LocalDateTime timestamp;
@@ -13,7 +13,7 @@ public class EndpointHitDtoMapper {
         dto.setId(endpointHit.getId());
         dto.setApp(endpointHit.getApp());
         dto.setUri(endpointHit.getUri());
-        dto.setIp(endpointHit.getIp());
+        dto.setIp(IpAddress.format(endpointHit.getIp()));
         dto.setTimestamp(endpointHit.getTimestamp());
         return dto;
     }
@@ -27,7 +27,7 @@ public class EndpointHitDtoMapper {
         hit.setId(dto.getId());
         hit.setApp(dto.getApp());
         hit.setUri(dto.getUri());
-        hit.setIp(dto.getIp());
+        hit.setIp(IpAddress.parse(dto.getIp()));
         hit.setTimestamp(dto.getTimestamp());
         return hit;
     }
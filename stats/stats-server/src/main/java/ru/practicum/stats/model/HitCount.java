@@ -0,0 +1,7 @@
+package ru.practicum.stats.model;
+
+/**
+ * Число хитов (или уникальных IP) по паре ключей справочников приложения и URI.
+ */
+public record HitCount(int appId, int uriId, long hits) {
+}
@@ -0,0 +1,173 @@
+package ru.practicum.stats.model;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Двоичное представление IP-адреса хита: IPv4 — 4 байта, IPv6 — 16 байт.
+ *
+ * Разбор не обращается к DNS: IPv4 и IPv6 разбираются вручную, только как литералы;
+ * зона IPv6 (%scope) отбрасывается. Строка, не являющаяся адресом, сохраняется как
+ * 0x00 + UTF-8 с дополнением до нечётной длины, чтобы не совпасть по длине с адресом.
+ */
+public final class IpAddress {
+
+    private static final byte TEXT_MARKER = 0;
+
+    private IpAddress() {
+    }
+
+    public static byte[] parse(String value) {
+        if (value == null) {
+            return null;
+        }
+        String trimmed = value.trim();
+        byte[] ipv4 = parseIpv4(trimmed);
+        if (ipv4 != null) {
+            return ipv4;
+        }
+        byte[] ipv6 = parseIpv6(trimmed);
+        if (ipv6 != null) {
+            return ipv6;
+        }
+        return encodeText(value);
+    }
+
+    public static String format(byte[] ip) {
+        if (ip == null) {
+            return null;
+        }
+        if (ip.length == 4) {
+            return (ip[0] & 0xFF) + "." + (ip[1] & 0xFF) + "." + (ip[2] & 0xFF) + "." + (ip[3] & 0xFF);
+        }
+        if (ip.length == 16) {
+            try {
+                return InetAddress.getByAddress(ip).getHostAddress();
+            } catch (UnknownHostException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        int end = ip.length;
+        if (end > 1 && ip[end - 1] == TEXT_MARKER) {
+            end--;
+        }
+        return new String(ip, 1, end - 1, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] parseIpv4(String value) {
+        byte[] result = new byte[4];
+        int octet = 0;
+        int digits = 0;
+        int part = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = octet * 10 + (c - '0');
+                if (++digits > 3 || octet > 255) {
+                    return null;
+                }
+            } else if (c == '.' && digits > 0 && part < 3) {
+                result[part++] = (byte) octet;
+                octet = 0;
+                digits = 0;
+            } else {
+                return null;
+            }
+        }
+        if (part != 3 || digits == 0) {
+            return null;
+        }
+        result[3] = (byte) octet;
+        return result;
+    }
+
+    /**
+     * Литерал IPv6 с необязательным сокращением :: и IPv4 в последних 32 битах.
+     * ::ffff:a.b.c.d возвращается как IPv4, т.е. 4 байта.
+     */
+    private static byte[] parseIpv6(String value) {
+        int scope = value.indexOf('%');
+        if (scope >= 0) {
+            String zone = value.substring(scope + 1);
+            if (zone.isEmpty() || !zone.chars().allMatch(
+                    c -> c < 0x80 && (Character.isLetterOrDigit(c) || c == '.' || c == '-' || c == '_'))) {
+                return null;
+            }
+            value = value.substring(0, scope);
+        }
+        int gap = value.indexOf("::");
+        if (value.indexOf(':') < 0 || gap >= 0 && value.indexOf("::", gap + 1) >= 0) {
+            return null;
+        }
+        byte[] head = parseGroups(gap >= 0 ? value.substring(0, gap) : value, gap < 0);
+        byte[] tail = gap >= 0 ? parseGroups(value.substring(gap + 2), true) : new byte[0];
+        if (head == null || tail == null
+                || (gap < 0 ? head.length != 16 : head.length + tail.length > 14)) {
+            return null;
+        }
+
+        byte[] result = new byte[16];
+        System.arraycopy(head, 0, result, 0, head.length);
+        System.arraycopy(tail, 0, result, 16 - tail.length, tail.length);
+        for (int i = 0; i < 10; i++) {
+            if (result[i] != 0) {
+                return result;
+            }
+        }
+        return result[10] == (byte) 0xFF && result[11] == (byte) 0xFF ? Arrays.copyOfRange(result, 12, 16) : result;
+    }
+
+    /**
+     * Группы по 1–4 шестнадцатеричные цифры через двоеточие; пустая строка — ни одной группы.
+     *
+     * @param ipv4Tail последней группой может быть IPv4 (a.b.c.d)
+     */
+    private static byte[] parseGroups(String value, boolean ipv4Tail) {
+        if (value.isEmpty()) {
+            return new byte[0];
+        }
+        String[] groups = value.split(":", -1);
+        if (groups.length > 8) {
+            return null;
+        }
+        byte[] result = new byte[groups.length * 2 + 2];
+        int length = 0;
+        for (int i = 0; i < groups.length; i++) {
+            String group = groups[i];
+            if (ipv4Tail && i == groups.length - 1 && group.indexOf('.') >= 0) {
+                byte[] ipv4 = parseIpv4(group);
+                if (ipv4 == null) {
+                    return null;
+                }
+                System.arraycopy(ipv4, 0, result, length, 4);
+                length += 4;
+                continue;
+            }
+            if (group.isEmpty() || group.length() > 4) {
+                return null;
+            }
+            int bits = 0;
+            for (int j = 0; j < group.length(); j++) {
+                char c = group.charAt(j);
+                int digit = c < 0x80 ? Character.digit(c, 16) : -1;
+                if (digit < 0) {
+                    return null;
+                }
+                bits = bits << 4 | digit;
+            }
+            result[length++] = (byte) (bits >>> 8);
+            result[length++] = (byte) bits;
+        }
+        return Arrays.copyOf(result, length);
+    }
+
+    private static byte[] encodeText(String value) {
+        byte[] text = value.getBytes(StandardCharsets.UTF_8);
+        int length = 1 + text.length;
+        byte[] result = Arrays.copyOf(new byte[]{TEXT_MARKER}, length % 2 == 0 ? length + 1 : length);
+        System.arraycopy(text, 0, result, 1, text.length);
+        return result;
+    }
+}
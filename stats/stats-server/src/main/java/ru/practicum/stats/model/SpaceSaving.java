@@ -0,0 +1,112 @@
+package ru.practicum.stats.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Сводка Space-Saving: приблизительные счётчики самых частых ключей среди потока.
+ *
+ * Хранится не больше capacity счётчиков. Новый ключ при заполненной сводке занимает место ключа
+ * с минимальным счётчиком и наследует его значение как погрешность, поэтому счётчик завышает
+ * истинное значение не больше чем на error, а любой ключ с частотой выше total / capacity
+ * гарантированно присутствует. Минимальный счётчик находится кучей, обновление — O(log capacity).
+ */
+public class SpaceSaving {
+
+    private final int capacity;
+    private final Map<Long, Entry> entries;
+    private final Entry[] heap;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity должна быть положительной: " + capacity);
+        }
+        this.capacity = capacity;
+        this.entries = new HashMap<>(capacity * 2);
+        this.heap = new Entry[capacity];
+    }
+
+    public synchronized void add(long key, long count) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            if (size < capacity) {
+                entry = new Entry(key, size);
+                entry.count = count;
+                heap[size++] = entry;
+                entries.put(key, entry);
+                siftUp(entry.index);
+                return;
+            }
+            entry = heap[0];
+            entries.remove(entry.key);
+            entry.key = key;
+            entry.error = entry.count;
+            entries.put(key, entry);
+        }
+        entry.count += count;
+        siftDown(entry.index);
+    }
+
+    /**
+     * Передаёт consumer все счётчики: ключ, оценку сверху и её максимальную погрешность.
+     */
+    public synchronized void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(heap[i].key, heap[i].count, heap[i].error);
+        }
+    }
+
+    private void siftUp(int index) {
+        Entry entry = heap[index];
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent].count <= entry.count) {
+                break;
+            }
+            heap[index] = heap[parent];
+            heap[index].index = index;
+            index = parent;
+        }
+        heap[index] = entry;
+        entry.index = index;
+    }
+
+    private void siftDown(int index) {
+        Entry entry = heap[index];
+        while (true) {
+            int child = 2 * index + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && heap[child + 1].count < heap[child].count) {
+                child++;
+            }
+            if (heap[child].count >= entry.count) {
+                break;
+            }
+            heap[index] = heap[child];
+            heap[index].index = index;
+            index = child;
+        }
+        heap[index] = entry;
+        entry.index = index;
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long key, long count, long error);
+    }
+
+    private static class Entry {
+        long key;
+        long count;
+        long error;
+        int index;
+
+        Entry(long key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.stats.model;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Множество уникальных IP одного URI: точное, пока IP не больше exactLimit, затем скетч HyperLogLog.
+ *
+ * Большинство URI набирают немного уникальных посетителей и считаются точно,
+ * а память на популярные URI ограничена размером скетча. Методы синхронизированы:
+ * блокировка берётся на один URI, поэтому запись разных URI не конкурирует.
+ */
+public class VisitorSet {
+
+    private static final byte EXACT = 0;
+    private static final byte SKETCH = 1;
+
+    private final int exactLimit;
+    private final int precision;
+    private Set<ByteBuffer> exact = new HashSet<>();
+    private HyperLogLog sketch;
+
+    public VisitorSet(int exactLimit, int precision) {
+        this.exactLimit = exactLimit;
+        this.precision = precision;
+    }
+
+    public synchronized void add(byte[] ip) {
+        if (sketch != null) {
+            sketch.add(ip);
+            return;
+        }
+        exact.add(ByteBuffer.wrap(ip.clone()));
+        if (exact.size() > exactLimit) {
+            sketch = new HyperLogLog(precision);
+            exact.forEach(value -> sketch.add(value.array()));
+            exact = null;
+        }
+    }
+
+    public synchronized long count() {
+        return sketch != null ? sketch.estimate() : exact.size();
+    }
+
+    public synchronized byte[] toBytes() {
+        if (sketch != null) {
+            byte[] registers = sketch.toBytes();
+            return ByteBuffer.allocate(1 + registers.length).put(SKETCH).put(registers).array();
+        }
+        int size = 1 + Integer.BYTES;
+        for (ByteBuffer value : exact) {
+            size += Short.BYTES + value.capacity();
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size).put(EXACT).putInt(exact.size());
+        for (ByteBuffer value : exact) {
+            buffer.putShort((short) value.capacity()).put(value.array());
+        }
+        return buffer.array();
+    }
+
+    public static VisitorSet fromBytes(byte[] bytes, int exactLimit, int precision) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.get() == SKETCH) {
+            byte[] registers = new byte[buffer.remaining()];
+            buffer.get(registers);
+            HyperLogLog sketch = HyperLogLog.fromBytes(registers);
+            VisitorSet set = new VisitorSet(exactLimit, sketch.getPrecision());
+            set.exact = null;
+            set.sketch = sketch;
+            return set;
+        }
+        VisitorSet set = new VisitorSet(exactLimit, precision);
+        int count = buffer.getInt();
+        for (int i = 0; i < count; i++) {
+            byte[] value = new byte[buffer.getShort() & 0xFFFF];
+            buffer.get(value);
+            set.exact.add(ByteBuffer.wrap(value));
+        }
+        return set;
+    }
+}
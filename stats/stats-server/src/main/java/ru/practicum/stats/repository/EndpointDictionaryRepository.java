@@ -0,0 +1,73 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Справочники приложений и URI: строка ↔ целочисленный ключ.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EndpointDictionaryRepository {
+
+    private static final int MAX_NAMES_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Добавляет отсутствующие значения. Значения должны быть отсортированы,
+     * чтобы параллельные транзакции блокировали строки уникального индекса в одном порядке.
+     */
+    public void insertMissing(Table table, List<String> names) {
+        List<Object[]> args = names.stream().map(name -> new Object[]{name}).toList();
+        jdbcTemplate.batchUpdate("INSERT INTO " + table.tableName + " (name) VALUES (?) ON CONFLICT (name) DO NOTHING", args);
+    }
+
+    public Map<String, Integer> findIds(Table table, Collection<String> names) {
+        Map<String, Integer> result = new HashMap<>();
+        forEachChunk(names, chunk -> namedJdbcTemplate.query(
+                "SELECT id, name FROM " + table.tableName + " WHERE name IN (:names)", Map.of("names", chunk),
+                rs -> {
+                    result.put(rs.getString("name"), rs.getInt("id"));
+                }));
+        return result;
+    }
+
+    public Map<Integer, String> findNames(Table table, Collection<Integer> ids) {
+        Map<Integer, String> result = new HashMap<>();
+        forEachChunk(ids, chunk -> namedJdbcTemplate.query(
+                "SELECT id, name FROM " + table.tableName + " WHERE id IN (:ids)", Map.of("ids", chunk),
+                rs -> {
+                    result.put(rs.getInt("id"), rs.getString("name"));
+                }));
+        return result;
+    }
+
+    private <T> void forEachChunk(Collection<T> values, Consumer<List<T>> action) {
+        List<T> list = new ArrayList<>(values);
+        for (int from = 0; from < list.size(); from += MAX_NAMES_PER_STATEMENT) {
+            action.accept(list.subList(from, Math.min(from + MAX_NAMES_PER_STATEMENT, list.size())));
+        }
+    }
+
+    public enum Table {
+        APP("endpoint_apps"),
+        URI("endpoint_uris");
+
+        private final String tableName;
+
+        Table(String tableName) {
+            this.tableName = tableName;
+        }
+    }
+}
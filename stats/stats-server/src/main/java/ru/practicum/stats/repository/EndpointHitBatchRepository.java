@@ -0,0 +1,51 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * Пакетная запись хитов через JDBC.
+ * IDENTITY-ключ EndpointHit не позволяет Hibernate группировать INSERT-ы,
+ * поэтому пакет пишется одним многострочным INSERT ... VALUES (...), (...).
+ */
+@Repository
+@RequiredArgsConstructor
+public class EndpointHitBatchRepository {
+
+    // 4 параметра на строку, лимит PostgreSQL — 65535 параметров в запросе
+    private static final int MAX_ROWS_PER_STATEMENT = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertAll(List<EndpointHit> hits) {
+        for (int from = 0; from < hits.size(); from += MAX_ROWS_PER_STATEMENT) {
+            List<EndpointHit> chunk = hits.subList(from, Math.min(from + MAX_ROWS_PER_STATEMENT, hits.size()));
+            jdbcTemplate.update(buildInsert(chunk.size()), toArgs(chunk));
+        }
+    }
+
+    private String buildInsert(int rows) {
+        StringBuilder sql = new StringBuilder("INSERT INTO endpoint_hits (app_id, uri_id, ip, timestamp) VALUES ");
+        for (int i = 0; i < rows; i++) {
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+        }
+        return sql.toString();
+    }
+
+    private Object[] toArgs(List<EndpointHit> hits) {
+        Object[] args = new Object[hits.size() * 4];
+        int i = 0;
+        for (EndpointHit hit : hits) {
+            args[i++] = hit.getAppId();
+            args[i++] = hit.getUriId();
+            args[i++] = hit.getIp();
+            args[i++] = Timestamp.valueOf(hit.getTimestamp());
+        }
+        return args;
+    }
+}
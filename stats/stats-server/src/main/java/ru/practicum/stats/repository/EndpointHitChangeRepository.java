@@ -0,0 +1,47 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * URI, по которым появились хиты после заданного id. id хитов растут вместе с последовательностью,
+ * поэтому id последнего учтённого хита служит курсором для получения изменений.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EndpointHitChangeRepository {
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public long findLastHitId() {
+        Long id = namedJdbcTemplate.getJdbcTemplate().queryForObject("SELECT MAX(id) FROM endpoint_hits", Long.class);
+        return id != null ? id : 0;
+    }
+
+    /**
+     * Имена URI с хитами, у которых afterId < id <= upToId. Диапазон по id читается по первичному
+     * ключу (id, timestamp) каждой секции.
+     *
+     * @param uriPrefix префикс URI или null
+     */
+    public List<String> findChangedUris(long afterId, long upToId, String uriPrefix) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("afterId", afterId)
+                .addValue("upToId", upToId);
+        StringBuilder sql = new StringBuilder("SELECT u.name FROM endpoint_uris u WHERE u.id IN (")
+                .append("SELECT DISTINCT h.uri_id FROM endpoint_hits h WHERE h.id > :afterId AND h.id <= :upToId)");
+        appendPrefix(sql, params, uriPrefix);
+        return namedJdbcTemplate.queryForList(sql.toString(), params, String.class);
+    }
+
+    private static void appendPrefix(StringBuilder sql, MapSqlParameterSource params, String uriPrefix) {
+        if (uriPrefix != null) {
+            sql.append(" AND u.name LIKE :uriPrefix").append(LikePattern.ESCAPE);
+            params.addValue("uriPrefix", LikePattern.startsWith(uriPrefix));
+        }
+    }
+}
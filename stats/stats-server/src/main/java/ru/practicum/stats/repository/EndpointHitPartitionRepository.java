@@ -0,0 +1,201 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.IpAddress;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * DDL таблицы endpoint_hits и её секций (PARTITION BY RANGE (timestamp)) и перенос исходной
+ * несекционированной таблицы со строковыми app, uri и ip.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EndpointHitPartitionRepository {
+
+    public static final String TABLE = "endpoint_hits";
+    public static final String DEFAULT_PARTITION = TABLE + "_default";
+    public static final String LEGACY_TABLE = TABLE + "_legacy";
+
+    // Произвольный ключ, общий для всех экземпляров stats-server
+    private static final long MAINTENANCE_LOCK_KEY = 0x656e64706f696e74L;
+
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+    private static final Pattern BOUNDS = Pattern.compile("FROM \\('([^']+)'\\) TO \\('([^']+)'\\)");
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Блокировка обслуживания секций до конца текущей транзакции; false, если её держит другой экземпляр.
+     */
+    public boolean tryLockMaintenance() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?)", Boolean.class, MAINTENANCE_LOCK_KEY));
+    }
+
+    public boolean tableExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, TABLE));
+    }
+
+    public boolean isPartitioned() {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT c.relkind = 'p' FROM pg_class c WHERE c.oid = to_regclass(?)", Boolean.class, TABLE));
+    }
+
+    /**
+     * true, если endpoint_hits в исходном формате: строковые app, uri и ip вместо ключей справочников
+     * и двоичного адреса.
+     */
+    public boolean isLegacyTable() {
+        List<String> columns = jdbcTemplate.queryForList("""
+                SELECT a.attname FROM pg_attribute a
+                WHERE a.attrelid = to_regclass(?) AND a.attnum > 0 AND NOT a.attisdropped
+                """, String.class, TABLE);
+        return columns.containsAll(List.of("app", "uri", "ip")) && !columns.contains("uri_id");
+    }
+
+    /**
+     * Переименовывает таблицу исходного формата и освобождает имена её первичного ключа,
+     * индексов и последовательность id: новая таблица продолжает ту же последовательность.
+     */
+    public void detachLegacyTable() {
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " RENAME TO " + LEGACY_TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + LEGACY_TABLE + " ALTER COLUMN id DROP DEFAULT");
+        jdbcTemplate.execute("ALTER SEQUENCE IF EXISTS endpoint_hits_id_seq OWNED BY NONE");
+        List<String> constraints = jdbcTemplate.queryForList("""
+                SELECT conname FROM pg_constraint WHERE conrelid = to_regclass(?) AND contype = 'p'
+                """, String.class, LEGACY_TABLE);
+        constraints.forEach(name -> jdbcTemplate.execute(
+                "ALTER TABLE " + LEGACY_TABLE + " RENAME CONSTRAINT " + name + " TO " + LEGACY_TABLE + "_pkey"));
+        List<String> indexes = jdbcTemplate.queryForList("""
+                SELECT i.relname FROM pg_index x JOIN pg_class i ON i.oid = x.indexrelid
+                WHERE x.indrelid = to_regclass(?) AND NOT x.indisprimary
+                """, String.class, LEGACY_TABLE);
+        indexes.forEach(name -> jdbcTemplate.execute("DROP INDEX " + name));
+    }
+
+    public List<LocalDateTime> findLegacyBuckets(String sqlUnit) {
+        return findBuckets(LEGACY_TABLE, sqlUnit);
+    }
+
+    /**
+     * Переносит хиты с прежними id, заменяя app и uri ключами справочников,
+     * а текстовый ip — двоичным видом, как при приёме хитов.
+     */
+    public int copyLegacyRows() {
+        jdbcTemplate.update("INSERT INTO endpoint_apps (name) SELECT DISTINCT app FROM " + LEGACY_TABLE
+                + " ORDER BY 1 ON CONFLICT (name) DO NOTHING");
+        jdbcTemplate.update("INSERT INTO endpoint_uris (name) SELECT DISTINCT uri FROM " + LEGACY_TABLE
+                + " ORDER BY 1 ON CONFLICT (name) DO NOTHING");
+        String select = "SELECT l.id, a.id, u.id, l.ip, l.timestamp FROM " + LEGACY_TABLE + " l"
+                + " JOIN endpoint_apps a ON a.name = l.app JOIN endpoint_uris u ON u.name = l.uri";
+        String insert = "INSERT INTO " + TABLE + " (id, app_id, uri_id, ip, timestamp) VALUES (?, ?, ?, ?, ?)";
+
+        List<Object[]> batch = new ArrayList<>(MIGRATION_BATCH_SIZE);
+        int[] copied = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(select);
+            statement.setFetchSize(MIGRATION_BATCH_SIZE);
+            return statement;
+        }, rs -> {
+            batch.add(new Object[]{rs.getLong(1), rs.getInt(2), rs.getInt(3),
+                    IpAddress.parse(rs.getString(4)), rs.getTimestamp(5)});
+            if (batch.size() == MIGRATION_BATCH_SIZE) {
+                copied[0] += flush(insert, batch);
+            }
+        });
+        return copied[0] + flush(insert, batch);
+    }
+
+    public void dropLegacyTable() {
+        jdbcTemplate.execute("DROP TABLE " + LEGACY_TABLE);
+    }
+
+    public void createDefaultPartition() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + DEFAULT_PARTITION + " PARTITION OF " + TABLE + " DEFAULT");
+    }
+
+    /**
+     * Начала интервалов, хиты которых попали в секцию по умолчанию.
+     */
+    public List<LocalDateTime> findDefaultBuckets(String sqlUnit) {
+        return findBuckets(DEFAULT_PARTITION, sqlUnit);
+    }
+
+    public List<Partition> findPartitions() {
+        return jdbcTemplate.query("""
+                SELECT c.relname, pg_get_expr(c.relpartbound, c.oid) AS bound
+                FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass(?)
+                """, (rs, rowNum) -> {
+            Matcher matcher = BOUNDS.matcher(rs.getString("bound"));
+            if (!matcher.find()) {
+                return new Partition(rs.getString("relname"), null, null);
+            }
+            return new Partition(rs.getString("relname"),
+                    LocalDateTime.parse(matcher.group(1), BOUND_FORMAT),
+                    LocalDateTime.parse(matcher.group(2), BOUND_FORMAT));
+        }, TABLE);
+    }
+
+    /**
+     * Создаёт секцию [from, to), перенося в неё подходящие строки из секции по умолчанию.
+     * Без переноса PostgreSQL не даст добавить секцию, пересекающуюся с данными DEFAULT.
+     */
+    public void createPartition(LocalDateTime from, LocalDateTime to) {
+        String name = TABLE + "_p" + from.format(NAME_FORMAT);
+        jdbcTemplate.execute("CREATE TABLE " + name + " (LIKE " + TABLE + " INCLUDING DEFAULTS)");
+        jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+                        + " WHERE timestamp >= ? AND timestamp < ? RETURNING *) INSERT INTO " + name + " SELECT * FROM moved",
+                Timestamp.valueOf(from), Timestamp.valueOf(to));
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " ATTACH PARTITION " + name
+                + " FOR VALUES FROM ('" + from.format(BOUND_FORMAT) + "') TO ('" + to.format(BOUND_FORMAT) + "')");
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("DROP TABLE " + name);
+    }
+
+    private int flush(String insert, List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(insert, batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+
+    private List<LocalDateTime> findBuckets(String table, String sqlUnit) {
+        return jdbcTemplate.queryForList(
+                        "SELECT DISTINCT date_trunc('" + sqlUnit + "', timestamp) FROM " + table, Timestamp.class)
+                .stream()
+                .map(Timestamp::toLocalDateTime)
+                .toList();
+    }
+
+    /**
+     * Секция с диапазоном [from, to); у секции по умолчанию границы равны null.
+     */
+    public record Partition(String name, LocalDateTime from, LocalDateTime to) {
+
+        public boolean isDefault() {
+            return from == null;
+        }
+
+        public boolean overlaps(LocalDateTime otherFrom, LocalDateTime otherTo) {
+            return !isDefault() && from.isBefore(otherTo) && otherFrom.isBefore(to);
+        }
+    }
+}
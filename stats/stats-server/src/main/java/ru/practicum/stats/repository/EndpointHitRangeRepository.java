@@ -0,0 +1,63 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Хиты по набору интервалов (uri_id, start, end) одним запросом.
+ *
+ * Интервалы передаются тремя массивами и разворачиваются unnest WITH ORDINALITY;
+ * каждая строка соединяется с endpoint_hits по индексу (uri_id, timestamp).
+ */
+@Repository
+@RequiredArgsConstructor
+public class EndpointHitRangeRepository {
+
+    private static final String COUNT_BY_RANGES = """
+            SELECT q.ord, %s AS hits
+            FROM unnest(?, ?, ?) WITH ORDINALITY AS q(uri_id, start_at, end_at, ord)
+            JOIN endpoint_hits h ON h.uri_id = q.uri_id AND h.timestamp BETWEEN q.start_at AND q.end_at
+            GROUP BY q.ord
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Число хитов (уникальных IP) в каждом интервале; i-й элемент результата соответствует ranges.get(i).
+     */
+    public long[] countByRanges(List<Range> ranges, boolean unique) {
+        long[] hits = new long[ranges.size()];
+        if (ranges.isEmpty()) {
+            return hits;
+        }
+        Integer[] uriIds = new Integer[ranges.size()];
+        Timestamp[] starts = new Timestamp[ranges.size()];
+        Timestamp[] ends = new Timestamp[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            Range range = ranges.get(i);
+            uriIds[i] = range.uriId();
+            starts[i] = Timestamp.valueOf(range.start());
+            ends[i] = Timestamp.valueOf(range.end());
+        }
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    COUNT_BY_RANGES.formatted(unique ? "COUNT(DISTINCT h.ip)" : "COUNT(*)"));
+            statement.setArray(1, connection.createArrayOf("integer", uriIds));
+            statement.setArray(2, connection.createArrayOf("timestamp", starts));
+            statement.setArray(3, connection.createArrayOf("timestamp", ends));
+            return statement;
+        }, rs -> {
+            hits[(int) rs.getLong("ord") - 1] = rs.getLong("hits");
+        });
+        return hits;
+    }
+
+    public record Range(int uriId, LocalDateTime start, LocalDateTime end) {
+    }
+}
@@ -1,85 +1,149 @@
 package ru.practicum.stats.repository;
 
 import ru.practicum.stats.model.EndpointHit;
-import ru.practicum.dto.ViewStatsDto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
+/**
+ * Запросы статистики по сырым хитам.
+ *
+ * Запросы нативные, чтобы QueryPlanSelfCheck проверял планы ровно того SQL, который выполняется.
+ * Группировка идёт по ключам справочников, строки app и uri подставляет EndpointDictionary.
+ * Индексы под них — в endpoint_hits.sql: (timestamp) INCLUDE (app_id, uri_id, ip)
+ * и (uri_id, timestamp) INCLUDE (app_id, ip).
+ *
+ * Псевдонимы appId и uriId взяты в кавычки: без них PostgreSQL приводит их к нижнему регистру,
+ * и StatsRow (проекция по точному имени столбца) получает null.
+ *
+ * Методы stream* выполняют те же запросы через курсор с размером выборки STREAM_FETCH_SIZE
+ * и должны вызываться в транзакции; поток нужно закрыть.
+ */
 public interface EndpointHitRepository extends JpaRepository<EndpointHit, Long> {
 
+    String STREAM_FETCH_SIZE = "1000";
+
     // Стандартная агрегированная статистика по всем URI
-    @Query("""
-        SELECT new ru.practicum.dto.ViewStatsDto(
-            h.app,
-            h.uri,
-            COUNT(h.id)
-        )
-        FROM EndpointHit h
+    String FIND_STATS = """
+        SELECT h.app_id AS "appId", h.uri_id AS "uriId", COUNT(*) AS hits
+        FROM endpoint_hits h
+        WHERE h.timestamp BETWEEN :start AND :end
+        GROUP BY h.app_id, h.uri_id
+        ORDER BY hits DESC
+    """;
+
+    // Статистика только по переданным URI (не-уникальные хиты)
+    String FIND_STATS_BY_URIS = """
+        SELECT h.app_id AS "appId", h.uri_id AS "uriId", COUNT(*) AS hits
+        FROM endpoint_hits h
+        WHERE h.timestamp BETWEEN :start AND :end
+          AND h.uri_id IN (:uriIds)
+        GROUP BY h.app_id, h.uri_id
+        ORDER BY hits DESC
+    """;
+
+    // Уникальные посещения по всем URI
+    String FIND_UNIQUE_STATS = """
+        SELECT h.app_id AS "appId", h.uri_id AS "uriId", COUNT(DISTINCT h.ip) AS hits
+        FROM endpoint_hits h
+        WHERE h.timestamp BETWEEN :start AND :end
+        GROUP BY h.app_id, h.uri_id
+        ORDER BY hits DESC
+    """;
+
+    // Уникальные посещения только по переданным URI
+    String FIND_UNIQUE_STATS_BY_URIS = """
+        SELECT h.app_id AS "appId", h.uri_id AS "uriId", COUNT(DISTINCT h.ip) AS hits
+        FROM endpoint_hits h
         WHERE h.timestamp BETWEEN :start AND :end
-        GROUP BY h.app, h.uri
-        ORDER BY COUNT(h.id) DESC
-    """)
-    List<ViewStatsDto> findStats(
+          AND h.uri_id IN (:uriIds)
+        GROUP BY h.app_id, h.uri_id
+        ORDER BY hits DESC
+    """;
+
+    @Query(value = FIND_STATS, nativeQuery = true)
+    List<StatsRow> findStats(
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end
     );
 
-    // Статистика только по переданным URI (не-уникальные хиты)
-    @Query("""
-        SELECT new ru.practicum.dto.ViewStatsDto(
-            h.app,
-            h.uri,
-            COUNT(h.id)
-        )
-        FROM EndpointHit h
-        WHERE h.timestamp BETWEEN :start AND :end
-          AND h.uri IN :uris
-        GROUP BY h.app, h.uri
-        ORDER BY COUNT(h.id) DESC
-    """)
-    List<ViewStatsDto> findStatsByUris(
+    @Query(value = FIND_STATS_BY_URIS, nativeQuery = true)
+    List<StatsRow> findStatsByUris(
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end,
-            @Param("uris") List<String> uris
+            @Param("uriIds") List<Integer> uriIds
     );
 
-    // Уникальные посещения по всем URI
-    @Query("""
-        SELECT new ru.practicum.dto.ViewStatsDto(
-            h.app,
-            h.uri,
-            COUNT(DISTINCT h.ip)
-        )
-        FROM EndpointHit h
-        WHERE h.timestamp BETWEEN :start AND :end
-        GROUP BY h.app, h.uri
-        ORDER BY COUNT(DISTINCT h.ip) DESC
-    """)
-    List<ViewStatsDto> findUniqueStats(
+    @Query(value = FIND_UNIQUE_STATS, nativeQuery = true)
+    List<StatsRow> findUniqueStats(
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end
     );
 
-    // Уникальные посещения только по переданным URI
-    @Query("""
-        SELECT new ru.practicum.dto.ViewStatsDto(
-            h.app,
-            h.uri,
-            COUNT(DISTINCT h.ip)
-        )
-        FROM EndpointHit h
-        WHERE h.timestamp BETWEEN :start AND :end
-          AND h.uri IN :uris
-        GROUP BY h.app, h.uri
-        ORDER BY COUNT(DISTINCT h.ip) DESC
-    """)
-    List<ViewStatsDto> findUniqueStatsByUris(
+    @Query(value = FIND_UNIQUE_STATS_BY_URIS, nativeQuery = true)
+    List<StatsRow> findUniqueStatsByUris(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end,
+            @Param("uriIds") List<Integer> uriIds
+    );
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = FIND_STATS, nativeQuery = true)
+    Stream<StatsRow> streamStats(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = FIND_STATS_BY_URIS, nativeQuery = true)
+    Stream<StatsRow> streamStatsByUris(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end,
+            @Param("uriIds") List<Integer> uriIds
+    );
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = FIND_UNIQUE_STATS, nativeQuery = true)
+    Stream<StatsRow> streamUniqueStats(
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
+    );
+
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query(value = FIND_UNIQUE_STATS_BY_URIS, nativeQuery = true)
+    Stream<StatsRow> streamUniqueStatsByUris(
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end,
-            @Param("uris") List<String> uris
+            @Param("uriIds") List<Integer> uriIds
     );
-}
\ No newline at end of file
+
+    /**
+     * Строка результата нативных запросов статистики.
+     */
+    interface StatsRow {
+        Integer getAppId();
+
+        Integer getUriId();
+
+        Long getHits();
+    }
+}
@@ -0,0 +1,217 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.PreparedStatementCreatorFactory;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterUtils;
+import org.springframework.jdbc.core.namedparam.ParsedSql;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.service.RollupQueryPlan;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Счётчики хитов по ключам (app_id, uri_id) в разрезе минут, часов и суток.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EndpointHitRollupRepository {
+
+    private static final String UPSERT = """
+            INSERT INTO endpoint_rollups (granularity, bucket_start, app_id, uri_id, hits)
+            VALUES (?, ?, ?, ?, ?)
+            ON CONFLICT (granularity, bucket_start, app_id, uri_id)
+            DO UPDATE SET hits = endpoint_rollups.hits + EXCLUDED.hits
+            """;
+
+    private static final String BACKFILL = """
+            INSERT INTO endpoint_rollups (granularity, bucket_start, app_id, uri_id, hits)
+            SELECT '%1$s', date_trunc('%2$s', h.timestamp), h.app_id, h.uri_id, COUNT(*)
+            FROM endpoint_hits h
+            GROUP BY date_trunc('%2$s', h.timestamp), h.app_id, h.uri_id
+            """;
+
+    // Хиты, записанные при выключенных агрегатах: afterId < id <= upToId
+    private static final String BACKFILL_AFTER = """
+            INSERT INTO endpoint_rollups (granularity, bucket_start, app_id, uri_id, hits)
+            SELECT '%1$s', date_trunc('%2$s', h.timestamp), h.app_id, h.uri_id, COUNT(*)
+            FROM endpoint_hits h
+            WHERE h.id > ? AND h.id <= ?
+            GROUP BY date_trunc('%2$s', h.timestamp), h.app_id, h.uri_id
+            ON CONFLICT (granularity, bucket_start, app_id, uri_id)
+            DO UPDATE SET hits = endpoint_rollups.hits + EXCLUDED.hits
+            """;
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * Увеличивает счётчики для всех интервалов, в которые попадают хиты.
+     * Ключи сортируются, чтобы параллельные транзакции блокировали строки в одном порядке.
+     */
+    public void increment(List<EndpointHit> hits) {
+        Map<RollupKey, Long> deltas = new TreeMap<>();
+        for (EndpointHit hit : hits) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                RollupKey key = new RollupKey(granularity, granularity.floor(hit.getTimestamp()), hit.getAppId(), hit.getUriId());
+                deltas.merge(key, 1L, Long::sum);
+            }
+        }
+
+        List<Object[]> args = new ArrayList<>(deltas.size());
+        deltas.forEach((key, count) -> args.add(new Object[]{
+                key.granularity().name(), Timestamp.valueOf(key.bucketStart()), key.appId(), key.uriId(), count
+        }));
+        jdbcTemplate.batchUpdate(UPSERT, args);
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT 1 FROM endpoint_rollups LIMIT 1").isEmpty();
+    }
+
+    /**
+     * Строит агрегаты по всем сырым хитам.
+     */
+    public void rebuild() {
+        jdbcTemplate.update("DELETE FROM endpoint_rollups");
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            jdbcTemplate.update(BACKFILL.formatted(granularity.name(), granularity.name().toLowerCase()));
+        }
+    }
+
+    /**
+     * Добавляет к агрегатам хиты с afterId < id <= upToId.
+     */
+    public void backfill(long afterId, long upToId) {
+        for (RollupGranularity granularity : RollupGranularity.values()) {
+            jdbcTemplate.update(BACKFILL_AFTER.formatted(granularity.name(), granularity.name().toLowerCase()),
+                    afterId, upToId);
+        }
+    }
+
+    /**
+     * id последнего хита, учтённого в агрегатах, если после него агрегаты выключались; иначе null.
+     * Строка блокируется до конца транзакции, чтобы её обрабатывал один экземпляр.
+     */
+    public Long findWatermark() {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT last_hit_id FROM endpoint_rollup_watermark WHERE id = 1 FOR UPDATE", Long.class);
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    /**
+     * Запоминает, что хиты после lastHitId в агрегаты не попадут; уже сохранённая отметка не сдвигается.
+     */
+    public void saveWatermark(long lastHitId) {
+        jdbcTemplate.update("""
+                INSERT INTO endpoint_rollup_watermark (id, last_hit_id) VALUES (1, ?)
+                ON CONFLICT (id) DO NOTHING
+                """, lastHitId);
+    }
+
+    public void deleteWatermark() {
+        jdbcTemplate.update("DELETE FROM endpoint_rollup_watermark");
+    }
+
+    /**
+     * Неуникальная статистика: сумма агрегатов из середины интервала и подсчёт сырых хитов на краях.
+     */
+    public List<HitCount> findStats(RollupQueryPlan plan, Collection<Integer> uriIds) {
+        StatsQuery query = statsQuery(plan, uriIds);
+        return namedJdbcTemplate.query(query.sql(), query.params(), (rs, rowNum) ->
+                new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+
+    /**
+     * То же, что findStats, но строки читаются курсором по STREAM_FETCH_SIZE и передаются consumer
+     * по одной. Для курсора PostgreSQL нужна транзакция.
+     */
+    public void forEachStats(RollupQueryPlan plan, Collection<Integer> uriIds, Consumer<HitCount> consumer) {
+        StatsQuery query = statsQuery(plan, uriIds);
+        ParsedSql parsed = NamedParameterUtils.parseSqlStatement(query.sql());
+        PreparedStatementCreator creator = new PreparedStatementCreatorFactory(
+                NamedParameterUtils.substituteNamedParameters(parsed, query.params()),
+                NamedParameterUtils.buildSqlParameterList(parsed, query.params()))
+                .newPreparedStatementCreator(NamedParameterUtils.buildValueArray(parsed, query.params(), null));
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = creator.createPreparedStatement(connection);
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            consumer.accept(new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+        });
+    }
+
+    private StatsQuery statsQuery(RollupQueryPlan plan, Collection<Integer> uriIds) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> parts = new ArrayList<>();
+
+        if (!plan.getBuckets().isEmpty()) {
+            List<String> conditions = new ArrayList<>();
+            for (int i = 0; i < plan.getBuckets().size(); i++) {
+                RollupQueryPlan.BucketRange bucket = plan.getBuckets().get(i);
+                conditions.add("(r.granularity = :g" + i + " AND r.bucket_start >= :bf" + i + " AND r.bucket_start < :bt" + i + ")");
+                params.addValue("g" + i, bucket.granularity().name());
+                params.addValue("bf" + i, Timestamp.valueOf(bucket.from()));
+                params.addValue("bt" + i, Timestamp.valueOf(bucket.to()));
+            }
+            parts.add("SELECT r.app_id, r.uri_id, r.hits FROM endpoint_rollups r WHERE ("
+                    + String.join(" OR ", conditions) + ")" + (uriIds != null ? " AND r.uri_id IN (:uriIds)" : ""));
+        }
+
+        if (!plan.getRawRanges().isEmpty()) {
+            List<String> conditions = new ArrayList<>();
+            for (int i = 0; i < plan.getRawRanges().size(); i++) {
+                RollupQueryPlan.RawRange range = plan.getRawRanges().get(i);
+                conditions.add("(h.timestamp >= :rf" + i + " AND h.timestamp " + (range.toInclusive() ? "<=" : "<") + " :rt" + i + ")");
+                params.addValue("rf" + i, Timestamp.valueOf(range.from()));
+                params.addValue("rt" + i, Timestamp.valueOf(range.to()));
+            }
+            parts.add("SELECT h.app_id, h.uri_id, COUNT(*) AS hits FROM endpoint_hits h WHERE ("
+                    + String.join(" OR ", conditions) + ")" + (uriIds != null ? " AND h.uri_id IN (:uriIds)" : "")
+                    + " GROUP BY h.app_id, h.uri_id");
+        }
+
+        if (uriIds != null) {
+            params.addValue("uriIds", uriIds);
+        }
+
+        String sql = "SELECT t.app_id, t.uri_id, SUM(t.hits) AS hits FROM (" + String.join(" UNION ALL ", parts) + ") t "
+                + "GROUP BY t.app_id, t.uri_id ORDER BY hits DESC";
+        return new StatsQuery(sql, params);
+    }
+
+    private record StatsQuery(String sql, MapSqlParameterSource params) {
+    }
+
+    private record RollupKey(RollupGranularity granularity, LocalDateTime bucketStart, int appId, int uriId)
+            implements Comparable<RollupKey> {
+
+        private static final Comparator<RollupKey> ORDER = Comparator.comparing(RollupKey::granularity)
+                .thenComparing(RollupKey::bucketStart)
+                .thenComparingInt(RollupKey::appId)
+                .thenComparingInt(RollupKey::uriId);
+
+        @Override
+        public int compareTo(RollupKey other) {
+            return ORDER.compare(this, other);
+        }
+    }
+}
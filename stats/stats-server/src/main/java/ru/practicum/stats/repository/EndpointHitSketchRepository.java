@@ -0,0 +1,151 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.service.RollupQueryPlan;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Скетчи HyperLogLog уникальных IP по (app_id, uri_id) для закрытых часов и суток.
+ *
+ * Строка в endpoint_sketch_buckets означает, что скетчи интервала построены для всех URI;
+ * URI без хитов в этом интервале строк в endpoint_sketches не имеют.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EndpointHitSketchRepository {
+
+    // Старшая часть ключа блокировки интервала, общая для всех экземпляров stats-server
+    private static final int BUCKET_LOCK_KEY = 0x736b6574;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public Set<LocalDateTime> findBuiltBuckets(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                               int precision) {
+        List<Timestamp> starts = jdbcTemplate.queryForList("""
+                        SELECT bucket_start FROM endpoint_sketch_buckets
+                        WHERE granularity = ? AND bucket_start >= ? AND bucket_start < ? AND sketch_precision = ?
+                        """, Timestamp.class,
+                granularity.name(), Timestamp.valueOf(from), Timestamp.valueOf(to), precision);
+        Set<LocalDateTime> result = new HashSet<>();
+        starts.forEach(start -> result.add(start.toLocalDateTime()));
+        return result;
+    }
+
+    public void forEachSketch(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                              Collection<Integer> uriIds, SketchConsumer consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("granularity", granularity.name())
+                .addValue("from", Timestamp.valueOf(from))
+                .addValue("to", Timestamp.valueOf(to));
+        String sql = """
+                SELECT s.app_id, s.uri_id, s.sketch FROM endpoint_sketches s
+                WHERE s.granularity = :granularity AND s.bucket_start >= :from AND s.bucket_start < :to
+                """;
+        if (uriIds != null) {
+            sql += " AND s.uri_id IN (:uriIds)";
+            params.addValue("uriIds", uriIds);
+        }
+        namedJdbcTemplate.query(sql, params, rs -> {
+            consumer.accept(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getBytes("sketch"));
+        });
+    }
+
+    /**
+     * Время самого раннего хранимого хита или null, если хитов нет.
+     */
+    public LocalDateTime findFirstHitTime() {
+        Timestamp first = jdbcTemplate.queryForObject("SELECT MIN(timestamp) FROM endpoint_hits", Timestamp.class);
+        return first != null ? first.toLocalDateTime() : null;
+    }
+
+    /**
+     * Перебирает различные (app_id, uri_id, ip) среди сырых хитов указанных интервалов.
+     */
+    public void forEachVisitor(List<RollupQueryPlan.RawRange> ranges, Collection<Integer> uriIds, VisitorConsumer consumer) {
+        MapSqlParameterSource params = new MapSqlParameterSource();
+        List<String> conditions = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            RollupQueryPlan.RawRange range = ranges.get(i);
+            conditions.add("(h.timestamp >= :rf" + i + " AND h.timestamp " + (range.toInclusive() ? "<=" : "<") + " :rt" + i + ")");
+            params.addValue("rf" + i, Timestamp.valueOf(range.from()));
+            params.addValue("rt" + i, Timestamp.valueOf(range.to()));
+        }
+        String sql = "SELECT DISTINCT h.app_id, h.uri_id, h.ip FROM endpoint_hits h WHERE (" + String.join(" OR ", conditions) + ")";
+        if (uriIds != null) {
+            sql += " AND h.uri_id IN (:uriIds)";
+            params.addValue("uriIds", uriIds);
+        }
+        namedJdbcTemplate.query(sql, params, rs -> {
+            consumer.accept(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getBytes("ip"));
+        });
+    }
+
+    /**
+     * Блокировка интервала до конца текущей транзакции. Её берут построение скетчей интервала
+     * и запись опоздавших хитов в него, поэтому построенный интервал не пропускает такие хиты,
+     * а одновременные построения не вставляют одни и те же строки.
+     */
+    public void lockBucket(RollupGranularity granularity, LocalDateTime bucketStart) {
+        int hour = (int) (bucketStart.toEpochSecond(ZoneOffset.UTC) / 3600);
+        jdbcTemplate.queryForObject("SELECT 1 FROM pg_advisory_xact_lock(?, ?)", Integer.class,
+                BUCKET_LOCK_KEY + granularity.ordinal(), hour);
+    }
+
+    /**
+     * Заменяет скетчи интервала и отмечает его как построенный.
+     */
+    public void replaceBucket(RollupGranularity granularity, LocalDateTime bucketStart, int precision,
+                              List<SketchRow> sketches) {
+        deleteBucket(granularity, bucketStart);
+        Timestamp start = Timestamp.valueOf(bucketStart);
+        List<Object[]> args = sketches.stream()
+                .map(row -> new Object[]{granularity.name(), start, row.appId(), row.uriId(), row.sketch()})
+                .toList();
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO endpoint_sketches (granularity, bucket_start, app_id, uri_id, sketch)
+                VALUES (?, ?, ?, ?, ?)
+                """, args);
+        jdbcTemplate.update("""
+                INSERT INTO endpoint_sketch_buckets (granularity, bucket_start, sketch_precision)
+                VALUES (?, ?, ?)
+                """, granularity.name(), start, precision);
+    }
+
+    /**
+     * Сбрасывает построенный интервал, например после записи опоздавших хитов.
+     */
+    public void deleteBucket(RollupGranularity granularity, LocalDateTime bucketStart) {
+        Timestamp start = Timestamp.valueOf(bucketStart);
+        jdbcTemplate.update("DELETE FROM endpoint_sketch_buckets WHERE granularity = ? AND bucket_start = ?",
+                granularity.name(), start);
+        jdbcTemplate.update("DELETE FROM endpoint_sketches WHERE granularity = ? AND bucket_start = ?",
+                granularity.name(), start);
+    }
+
+    public record SketchRow(int appId, int uriId, byte[] sketch) {
+    }
+
+    @FunctionalInterface
+    public interface SketchConsumer {
+        void accept(int appId, int uriId, byte[] sketch);
+    }
+
+    @FunctionalInterface
+    public interface VisitorConsumer {
+        void accept(int appId, int uriId, byte[] ip);
+    }
+}
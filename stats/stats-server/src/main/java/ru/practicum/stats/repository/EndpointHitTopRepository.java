@@ -0,0 +1,49 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.practicum.stats.model.HitCount;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Точный расчёт самых просматриваемых URI по сырым хитам: LIMIT выполняется в БД,
+ * фильтр по app и префиксу URI — соединением со справочниками.
+ */
+@Repository
+@RequiredArgsConstructor
+public class EndpointHitTopRepository {
+
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    /**
+     * @param app       имя приложения или null
+     * @param uriPrefix префикс URI или null
+     */
+    public List<HitCount> findTop(LocalDateTime start, LocalDateTime end, boolean unique,
+                                  String app, String uriPrefix, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(start))
+                .addValue("end", Timestamp.valueOf(end))
+                .addValue("limit", limit);
+        StringBuilder sql = new StringBuilder("SELECT h.app_id, h.uri_id, ")
+                .append(unique ? "COUNT(DISTINCT h.ip)" : "COUNT(*)")
+                .append(" AS hits FROM endpoint_hits h");
+        if (app != null) {
+            sql.append(" JOIN endpoint_apps a ON a.id = h.app_id AND a.name = :app");
+            params.addValue("app", app);
+        }
+        if (uriPrefix != null) {
+            sql.append(" JOIN endpoint_uris u ON u.id = h.uri_id AND u.name LIKE :uriPrefix").append(LikePattern.ESCAPE);
+            params.addValue("uriPrefix", LikePattern.startsWith(uriPrefix));
+        }
+        sql.append(" WHERE h.timestamp BETWEEN :start AND :end")
+                .append(" GROUP BY h.app_id, h.uri_id ORDER BY hits DESC LIMIT :limit");
+        return namedJdbcTemplate.query(sql.toString(), params, (rs, rowNum) ->
+                new HitCount(rs.getInt("app_id"), rs.getInt("uri_id"), rs.getLong("hits")));
+    }
+}
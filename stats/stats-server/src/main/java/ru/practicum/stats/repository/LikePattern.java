@@ -0,0 +1,20 @@
+package ru.practicum.stats.repository;
+
+/**
+ * Шаблоны LIKE из пользовательских строк: символы \, % и _ экранируются, поэтому
+ * условие должно заканчиваться ESCAPE.
+ */
+final class LikePattern {
+
+    static final String ESCAPE = " ESCAPE '\\'";
+
+    private LikePattern() {
+    }
+
+    /**
+     * Шаблон строк, начинающихся с prefix.
+     */
+    static String startsWith(String prefix) {
+        return prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+}
@@ -0,0 +1,92 @@
+package ru.practicum.stats.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Снимки счётчиков просмотров за всё время и водяной знак — id последнего учтённого хита.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ViewCounterRepository {
+
+    private static final String UPSERT = """
+            INSERT INTO endpoint_counters (app_id, uri_id, hits, visitors)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (app_id, uri_id)
+            DO UPDATE SET hits = EXCLUDED.hits, visitors = EXCLUDED.visitors
+            """;
+
+    private static final String SET_WATERMARK = """
+            INSERT INTO endpoint_counter_watermark (id, last_hit_id) VALUES (1, ?)
+            ON CONFLICT (id) DO UPDATE SET last_hit_id = EXCLUDED.last_hit_id
+            """;
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void forEachCounter(CounterConsumer consumer) {
+        jdbcTemplate.query("SELECT app_id, uri_id, hits, visitors FROM endpoint_counters",
+                rs -> {
+                    consumer.accept(rs.getInt(1), rs.getInt(2), rs.getLong(3), rs.getBytes(4));
+                });
+    }
+
+    public void saveAll(List<CounterRow> rows) {
+        List<Object[]> args = new ArrayList<>(rows.size());
+        rows.forEach(row -> args.add(new Object[]{row.appId(), row.uriId(), row.hits(), row.visitors()}));
+        jdbcTemplate.batchUpdate(UPSERT, args);
+    }
+
+    /**
+     * id последнего хита, учтённого в сохранённых счётчиках; 0, если снимка ещё нет.
+     */
+    public long findWatermark() {
+        List<Long> ids = jdbcTemplate.queryForList(
+                "SELECT last_hit_id FROM endpoint_counter_watermark WHERE id = 1", Long.class);
+        return ids.isEmpty() ? 0 : ids.get(0);
+    }
+
+    public void saveWatermark(long lastHitId) {
+        jdbcTemplate.update(SET_WATERMARK, lastHitId);
+    }
+
+    public long findLastHitId() {
+        Long id = jdbcTemplate.queryForObject("SELECT MAX(id) FROM endpoint_hits", Long.class);
+        return id != null ? id : 0;
+    }
+
+    /**
+     * Обходит хиты с id больше заданного, не загружая их в память целиком.
+     */
+    public void forEachHitAfter(long lastHitId, HitConsumer consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT app_id, uri_id, ip FROM endpoint_hits WHERE id > ?");
+            statement.setLong(1, lastHitId);
+            statement.setFetchSize(FETCH_SIZE);
+            return statement;
+        }, rs -> {
+            consumer.accept(rs.getInt(1), rs.getInt(2), rs.getBytes(3));
+        });
+    }
+
+    @FunctionalInterface
+    public interface CounterConsumer {
+        void accept(int appId, int uriId, long hits, byte[] visitors);
+    }
+
+    @FunctionalInterface
+    public interface HitConsumer {
+        void accept(int appId, int uriId, byte[] ip);
+    }
+
+    public record CounterRow(int appId, int uriId, long hits, byte[] visitors) {
+    }
+}
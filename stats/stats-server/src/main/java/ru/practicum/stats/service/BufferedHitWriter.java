@@ -0,0 +1,195 @@
+package ru.practicum.stats.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import ru.practicum.stats.config.HitIngestProperties;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Отложенная запись хитов (write-behind).
+ *
+ * Хиты складываются в ограниченный кольцевой буфер, фоновый поток забирает их пакетами
+ * по batchSize (или по истечении flushIntervalMillis) и пишет многострочным INSERT.
+ * При переполнении буфера поток запроса ждёт offerTimeoutMillis, после чего пишет хит сам —
+ * так нагрузка ограничивается без потери данных; ошибка такой записи возвращается клиенту.
+ *
+ * Пакет, который не удалось записать из-за ошибки базы данных, повторяется до flushRetries раз
+ * с удваивающейся паузой; пока поток записи ждёт, буфер заполняется и запросы пишут хиты сами.
+ * Хиты пакета, не записанного и после повторов, учитываются в stats.ingest.failed.
+ * При остановке приложения приём в буфер закрывается и буфер дописывается.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "stats.ingest", name = "mode", havingValue = "buffered")
+public class BufferedHitWriter implements HitWriter {
+
+    private final HitStore hitStore;
+    private final HitIngestProperties props;
+    private final BlockingQueue<EndpointHit> buffer;
+
+    private final Timer flushTimer;
+    private final DistributionSummary batchSizeSummary;
+    private final Counter callerRunsCounter;
+    private final Counter failedCounter;
+    private final Counter retriedCounter;
+
+    // Чтение — постановка хита в буфер, запись — закрытие приёма: после stop() в буфер ничего не попадает
+    private final ReadWriteLock acceptLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread flusher;
+
+    public BufferedHitWriter(HitStore hitStore,
+                             HitIngestProperties props,
+                             MeterRegistry meterRegistry) {
+        this.hitStore = hitStore;
+        this.props = props;
+        this.buffer = new ArrayBlockingQueue<>(props.getBufferCapacity());
+
+        Gauge.builder("stats.ingest.queue.depth", buffer, BlockingQueue::size)
+                .description("Количество хитов, ожидающих записи")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("stats.ingest.flush.latency")
+                .description("Время записи одного пакета хитов")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("stats.ingest.flush.size")
+                .description("Размер записанного пакета")
+                .register(meterRegistry);
+        this.callerRunsCounter = Counter.builder("stats.ingest.caller.runs")
+                .description("Хиты, записанные синхронно из-за переполнения буфера")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("stats.ingest.failed")
+                .description("Хиты из буфера, потерянные после всех повторов записи")
+                .register(meterRegistry);
+        this.retriedCounter = Counter.builder("stats.ingest.flush.retries")
+                .description("Повторы записи пакета после ошибки")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "stats-hit-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+        log.info("Запущена отложенная запись хитов: capacity={}, batchSize={}, flushIntervalMillis={}",
+                props.getBufferCapacity(), props.getBatchSize(), props.getFlushIntervalMillis());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        acceptLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            acceptLock.writeLock().unlock();
+        }
+        flusher.interrupt();
+        flusher.join(TimeUnit.SECONDS.toMillis(30));
+
+        // Дописываем то, что осталось в буфере
+        List<EndpointHit> rest = new ArrayList<>();
+        buffer.drainTo(rest);
+        if (!rest.isEmpty()) {
+            log.info("Запись {} хитов из буфера перед остановкой", rest.size());
+            flush(rest);
+        }
+    }
+
+    @Override
+    public void write(EndpointHit hit) {
+        acceptLock.readLock().lock();
+        try {
+            if (running && buffer.offer(hit, props.getOfferTimeoutMillis(), TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            acceptLock.readLock().unlock();
+        }
+        // Ошибка записи в потоке запроса доходит до клиента, и тот может повторить хит
+        callerRunsCounter.increment();
+        hitStore.store(List.of(hit));
+    }
+
+    private void flushLoop() {
+        int batchSize = props.getBatchSize();
+        long intervalNanos = TimeUnit.MILLISECONDS.toNanos(props.getFlushIntervalMillis());
+
+        while (running) {
+            List<EndpointHit> batch = new ArrayList<>(batchSize);
+            try {
+                long deadline = System.nanoTime() + intervalNanos;
+                while (batch.size() < batchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    EndpointHit hit = remaining > 0 ? buffer.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (hit == null) {
+                        break;
+                    }
+                    batch.add(hit);
+                    buffer.drainTo(batch, batchSize - batch.size());
+                }
+            } catch (InterruptedException e) {
+                // Остановка: недочитанный пакет пишем ниже, остаток буфера допишет stop()
+                Thread.currentThread().interrupt();
+            }
+            if (!batch.isEmpty()) {
+                flush(batch);
+            }
+        }
+    }
+
+    private void flush(List<EndpointHit> batch) {
+        long backoff = props.getRetryBackoffMillis();
+        for (int attempt = 0; ; attempt++) {
+            try {
+                flushTimer.record(() -> hitStore.store(batch));
+                batchSizeSummary.record(batch.size());
+                log.debug("Записан пакет из {} хитов", batch.size());
+                return;
+            } catch (DataAccessException | TransactionException e) {
+                if (attempt >= props.getFlushRetries()) {
+                    lost(batch, e);
+                    return;
+                }
+                retriedCounter.increment();
+                log.warn("Ошибка записи пакета из {} хитов, повтор через {} мс: {}", batch.size(), backoff, e.getMessage());
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    // Остановка: оставшиеся попытки выполняются без пауз
+                    Thread.currentThread().interrupt();
+                }
+                backoff *= 2;
+            } catch (Exception e) {
+                // Ошибка не базы данных: повтор мог бы записать уже сохранённые хиты второй раз
+                lost(batch, e);
+                return;
+            }
+        }
+    }
+
+    private void lost(List<EndpointHit> batch, Exception e) {
+        failedCounter.increment(batch.size());
+        log.error("Не удалось записать пакет из {} хитов: {}", batch.size(), e.getMessage(), e);
+    }
+}
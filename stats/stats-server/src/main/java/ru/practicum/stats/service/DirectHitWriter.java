@@ -0,0 +1,27 @@
+package ru.practicum.stats.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.util.List;
+
+/**
+ * Синхронная запись: один INSERT на каждый хит в потоке запроса.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "stats.ingest", name = "mode", havingValue = "direct", matchIfMissing = true)
+public class DirectHitWriter implements HitWriter {
+
+    private final HitStore hitStore;
+
+    @Override
+    public void write(EndpointHit hit) {
+        hitStore.store(List.of(hit));
+        log.debug("Статистика сохранена: uri={}", hit.getUri());
+    }
+}
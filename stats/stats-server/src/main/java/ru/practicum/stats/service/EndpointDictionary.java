@@ -0,0 +1,160 @@
+package ru.practicum.stats.service;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.repository.EndpointDictionaryRepository;
+import ru.practicum.stats.repository.EndpointDictionaryRepository.Table;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Кодирование app и uri целыми ключами справочников endpoint_apps и endpoint_uris.
+ *
+ * Соответствие кэшируется в обе стороны и не вытесняется: ключ значения никогда не меняется,
+ * а различных приложений и URI на порядки меньше, чем хитов.
+ */
+@Component
+public class EndpointDictionary {
+
+    private final Dimension apps;
+    private final Dimension uris;
+
+    public EndpointDictionary(EndpointDictionaryRepository repository, PlatformTransactionManager transactionManager) {
+        // Новые значения фиксируются в отдельной транзакции: откат записи хитов
+        // не должен оставить в кэше ключ, которого нет в базе
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.apps = new Dimension(Table.APP, repository, requiresNew);
+        this.uris = new Dimension(Table.URI, repository, requiresNew);
+    }
+
+    /**
+     * Заполняет appId и uriId хитов, добавляя в справочники новые значения.
+     */
+    public void encode(List<EndpointHit> hits) {
+        Set<String> appNames = new TreeSet<>();
+        Set<String> uriNames = new TreeSet<>();
+        for (EndpointHit hit : hits) {
+            appNames.add(hit.getApp());
+            uriNames.add(hit.getUri());
+        }
+        Map<String, Integer> appIds = apps.intern(appNames);
+        Map<String, Integer> uriIds = uris.intern(uriNames);
+        for (EndpointHit hit : hits) {
+            hit.setAppId(appIds.get(hit.getApp()));
+            hit.setUriId(uriIds.get(hit.getUri()));
+        }
+    }
+
+    /**
+     * Ключи известных URI; URI, которых нет в справочнике, в результат не попадают.
+     */
+    public Map<String, Integer> findUriIds(Collection<String> names) {
+        return uris.find(names);
+    }
+
+    /**
+     * Раскодирует итоговые строки статистики, сохраняя их порядок.
+     */
+    public List<ViewStatsDto> decode(List<HitCount> counts) {
+        Map<Integer, String> appNames = apps.names(counts.stream().map(HitCount::appId).toList());
+        Map<Integer, String> uriNames = uris.names(counts.stream().map(HitCount::uriId).toList());
+        return counts.stream()
+                .map(count -> new ViewStatsDto(appNames.get(count.appId()), uriNames.get(count.uriId()), count.hits()))
+                .toList();
+    }
+
+    private static class Dimension {
+
+        private final Table table;
+        private final EndpointDictionaryRepository repository;
+        private final TransactionTemplate requiresNew;
+        private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+        private final Map<Integer, String> names = new ConcurrentHashMap<>();
+
+        Dimension(Table table, EndpointDictionaryRepository repository, TransactionTemplate requiresNew) {
+            this.table = table;
+            this.repository = repository;
+            this.requiresNew = requiresNew;
+        }
+
+        Map<String, Integer> intern(Set<String> values) {
+            Map<String, Integer> result = new HashMap<>();
+            List<String> missing = collectKnown(values, result);
+            if (!missing.isEmpty()) {
+                Map<String, Integer> loaded = requiresNew.execute(status -> {
+                    repository.insertMissing(table, missing);
+                    return repository.findIds(table, missing);
+                });
+                remember(loaded);
+                result.putAll(loaded);
+            }
+            return result;
+        }
+
+        Map<String, Integer> find(Collection<String> values) {
+            Map<String, Integer> result = new HashMap<>();
+            List<String> missing = collectKnown(values, result);
+            if (!missing.isEmpty()) {
+                Map<String, Integer> loaded = repository.findIds(table, missing);
+                remember(loaded);
+                result.putAll(loaded);
+            }
+            return result;
+        }
+
+        Map<Integer, String> names(Collection<Integer> keys) {
+            Map<Integer, String> result = new HashMap<>();
+            List<Integer> missing = keys.stream()
+                    .filter(key -> {
+                        String name = names.get(key);
+                        if (name != null) {
+                            result.put(key, name);
+                        }
+                        return name == null;
+                    })
+                    .distinct()
+                    .toList();
+            if (!missing.isEmpty()) {
+                Map<Integer, String> loaded = repository.findNames(table, missing);
+                loaded.forEach((key, name) -> {
+                    names.put(key, name);
+                    ids.put(name, key);
+                });
+                result.putAll(loaded);
+            }
+            return result;
+        }
+
+        private List<String> collectKnown(Collection<String> values, Map<String, Integer> result) {
+            return values.stream()
+                    .filter(value -> {
+                        Integer id = ids.get(value);
+                        if (id != null) {
+                            result.put(value, id);
+                        }
+                        return id == null;
+                    })
+                    .distinct()
+                    .toList();
+        }
+
+        private void remember(Map<String, Integer> loaded) {
+            loaded.forEach((name, key) -> {
+                ids.put(name, key);
+                names.put(key, name);
+            });
+        }
+    }
+}
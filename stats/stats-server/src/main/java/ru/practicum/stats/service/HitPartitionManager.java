@@ -0,0 +1,120 @@
+package ru.practicum.stats.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.config.PartitionProperties;
+import ru.practicum.stats.repository.EndpointHitPartitionRepository;
+import ru.practicum.stats.repository.EndpointHitPartitionRepository.Partition;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Обслуживание таблицы endpoint_hits: создание по endpoint_hits.sql и перенос исходной несекционированной
+ * таблицы, создание секций заранее, перенос хитов из секции по умолчанию и удаление секций старше срока хранения.
+ *
+ * Запросы по [start, end] с условием на timestamp читают только пересекающиеся секции,
+ * а удаление старых данных — это DROP TABLE секции вместо DELETE с последующим VACUUM.
+ * Агрегаты и скетчи при удалении секций не трогаются.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HitPartitionManager {
+
+    private static final String TABLE_SCRIPT = "endpoint_hits.sql";
+
+    private final EndpointHitPartitionRepository partitionRepository;
+    private final PartitionProperties properties;
+    private final TransactionTemplate transactionTemplate;
+    private final DataSource dataSource;
+
+    @PostConstruct
+    public void init() {
+        maintain();
+    }
+
+    @Scheduled(fixedDelayString = "${stats.partition.maintenance-interval-millis:3600000}",
+            initialDelayString = "${stats.partition.maintenance-interval-millis:3600000}")
+    public void maintain() {
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!partitionRepository.tryLockMaintenance()) {
+                log.debug("Обслуживание секций выполняет другой экземпляр");
+                return;
+            }
+            if (!partitionRepository.tableExists()) {
+                createTable();
+            } else if (!partitionRepository.isPartitioned()) {
+                migrateLegacyTable();
+            }
+            partitionRepository.createDefaultPartition();
+
+            PartitionProperties.PartitionInterval interval = properties.getInterval();
+            List<Partition> partitions = partitionRepository.findPartitions();
+            Set<LocalDateTime> wanted = new TreeSet<>(partitionRepository.findDefaultBuckets(interval.sqlUnit()));
+            LocalDateTime current = interval.floor(LocalDateTime.now());
+            for (int i = 0; i <= properties.getPrecreate(); i++) {
+                wanted.add(interval.plus(current, i));
+            }
+            createMissing(partitions, wanted);
+            dropExpired(current);
+        });
+    }
+
+    private void migrateLegacyTable() {
+        if (!partitionRepository.isLegacyTable()) {
+            throw new IllegalStateException("Таблица " + EndpointHitPartitionRepository.TABLE
+                    + " не секционирована и не совпадает с исходным форматом (app, uri, ip);"
+                    + " перенесите или удалите её вручную");
+        }
+        log.info("Перевод таблицы endpoint_hits в секционированный формат");
+        partitionRepository.detachLegacyTable();
+        createTable();
+        partitionRepository.createDefaultPartition();
+        createMissing(List.of(), new TreeSet<>(
+                partitionRepository.findLegacyBuckets(properties.getInterval().sqlUnit())));
+        int copied = partitionRepository.copyLegacyRows();
+        partitionRepository.dropLegacyTable();
+        log.info("Таблица endpoint_hits переведена в секционированный формат, перенесено {} хитов", copied);
+    }
+
+    private void createTable() {
+        new ResourceDatabasePopulator(new ClassPathResource(TABLE_SCRIPT)).execute(dataSource);
+    }
+
+    private void createMissing(List<Partition> partitions, Set<LocalDateTime> starts) {
+        PartitionProperties.PartitionInterval interval = properties.getInterval();
+        for (LocalDateTime from : starts) {
+            LocalDateTime to = interval.plus(from, 1);
+            // После смены interval старые секции могут частично перекрывать новый диапазон —
+            // такие хиты остаются в секции по умолчанию
+            if (partitions.stream().anyMatch(partition -> partition.overlaps(from, to))) {
+                continue;
+            }
+            partitionRepository.createPartition(from, to);
+            log.info("Создана секция endpoint_hits [{}, {})", from, to);
+        }
+    }
+
+    private void dropExpired(LocalDateTime current) {
+        if (properties.getRetention() <= 0) {
+            return;
+        }
+        LocalDateTime cutoff = properties.getInterval().plus(current, 1 - properties.getRetention());
+        for (Partition partition : partitionRepository.findPartitions()) {
+            if (!partition.isDefault() && !partition.to().isAfter(cutoff)) {
+                partitionRepository.dropPartition(partition.name());
+                log.info("Удалена секция {} [{}, {}) по сроку хранения", partition.name(), partition.from(), partition.to());
+            }
+        }
+    }
+}
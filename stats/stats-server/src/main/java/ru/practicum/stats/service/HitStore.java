@@ -0,0 +1,52 @@
+package ru.practicum.stats.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.config.RollupProperties;
+import ru.practicum.stats.config.UniqueStatsProperties;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.repository.EndpointHitBatchRepository;
+import ru.practicum.stats.repository.EndpointHitRollupRepository;
+
+import java.util.List;
+
+/**
+ * Единая точка записи хитов: сырые строки и агрегаты обновляются в одной транзакции.
+ * Значения app и uri кодируются ключами справочников до её начала,
+ * счётчики просмотров за всё время и сводки самых просматриваемых URI обновляются после её завершения.
+ */
+@Component
+@RequiredArgsConstructor
+public class HitStore {
+
+    private final EndpointHitBatchRepository batchRepository;
+    private final EndpointHitRollupRepository rollupRepository;
+    private final RollupProperties rollupProperties;
+    private final UniqueStatsProperties uniqueProperties;
+    private final UniqueVisitorEstimator uniqueVisitorEstimator;
+    private final EndpointDictionary dictionary;
+    private final TransactionTemplate transactionTemplate;
+    private final StatsResultCache resultCache;
+    private final ViewCounterStore viewCounters;
+    private final TopUriTracker topTracker;
+
+    public void store(List<EndpointHit> hits) {
+        if (hits.isEmpty()) {
+            return;
+        }
+        dictionary.encode(hits);
+        long sequence = resultCache.beforeWrite();
+        viewCounters.ingest(hits, () -> transactionTemplate.executeWithoutResult(status -> {
+            batchRepository.insertAll(hits);
+            if (rollupProperties.isEnabled()) {
+                rollupRepository.increment(hits);
+            }
+            if (uniqueProperties.getMode() == UniqueStatsProperties.UniqueMode.APPROXIMATE) {
+                uniqueVisitorEstimator.onHitsStored(hits);
+            }
+        }));
+        resultCache.onHitsStored(hits, sequence);
+        topTracker.onHitsStored(hits);
+    }
+}
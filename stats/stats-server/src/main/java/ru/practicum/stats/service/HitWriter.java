@@ -0,0 +1,12 @@
+package ru.practicum.stats.service;
+
+import ru.practicum.stats.model.EndpointHit;
+
+/**
+ * Стратегия записи хитов в хранилище.
+ * Реализация выбирается параметром stats.ingest.mode.
+ */
+public interface HitWriter {
+
+    void write(EndpointHit hit);
+}
@@ -0,0 +1,82 @@
+package ru.practicum.stats.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.QueryPlanCheckProperties;
+import ru.practicum.stats.repository.EndpointHitRepository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Проверяет при старте, что запросы EndpointHitRepository обслуживаются индексами.
+ *
+ * Для каждого запроса выполняется EXPLAIN с типичными параметрами (последние сутки, один URI);
+ * Seq Scan по endpoint_hits или её секциям означает, что покрывающие индексы из schema.sql
+ * отсутствуют или не подходят.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "stats.plan-check", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class QueryPlanSelfCheck implements ApplicationRunner {
+
+    private static final Map<String, String> QUERIES = new LinkedHashMap<>();
+
+    static {
+        QUERIES.put("findStats", EndpointHitRepository.FIND_STATS);
+        QUERIES.put("findStatsByUris", EndpointHitRepository.FIND_STATS_BY_URIS);
+        QUERIES.put("findUniqueStats", EndpointHitRepository.FIND_UNIQUE_STATS);
+        QUERIES.put("findUniqueStatsByUris", EndpointHitRepository.FIND_UNIQUE_STATS_BY_URIS);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final QueryPlanCheckProperties properties;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        Long rows = jdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(GREATEST(c.reltuples, 0)), 0)::bigint
+                FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = to_regclass('endpoint_hits')
+                """, Long.class);
+        if (rows == null || rows < properties.getMinTableRows()) {
+            log.debug("Проверка планов запросов пропущена: в endpoint_hits около {} строк", rows);
+            return;
+        }
+
+        LocalDateTime end = LocalDateTime.now();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("start", Timestamp.valueOf(end.minusDays(1)))
+                .addValue("end", Timestamp.valueOf(end))
+                .addValue("uriIds", List.of(1));
+
+        int failed = 0;
+        for (Map.Entry<String, String> query : QUERIES.entrySet()) {
+            List<String> plan = namedJdbcTemplate.queryForList("EXPLAIN " + query.getValue(), params, String.class);
+            if (plan.stream().anyMatch(line -> line.contains("Seq Scan"))) {
+                failed++;
+                log.warn("Для запроса {} запланирован Seq Scan по endpoint_hits:\n{}",
+                        query.getKey(), String.join("\n", plan));
+            } else {
+                log.debug("План запроса {}:\n{}", query.getKey(), String.join("\n", plan));
+            }
+        }
+
+        if (failed > 0 && properties.isFailOnSeqScan()) {
+            throw new IllegalStateException("Seq Scan planned for " + failed + " stats queries, see warnings above");
+        }
+        log.info("Проверка планов запросов статистики: {} из {} без Seq Scan", QUERIES.size() - failed, QUERIES.size());
+    }
+}
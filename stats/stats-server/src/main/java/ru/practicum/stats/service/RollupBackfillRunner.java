@@ -0,0 +1,58 @@
+package ru.practicum.stats.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.config.RollupProperties;
+import ru.practicum.stats.repository.EndpointHitChangeRepository;
+import ru.practicum.stats.repository.EndpointHitRollupRepository;
+
+/**
+ * Приводит агрегаты в соответствие с сырыми хитами при старте.
+ *
+ * Старт с выключенными агрегатами сохраняет отметку — id последнего хита, учтённого в агрегатах.
+ * Старт с включёнными досчитывает хиты после отметки и удаляет её, а пустые агрегаты при
+ * накопленных хитах строит заново. Это выполняется при создании бина, то есть до того, как
+ * сервер начнёт принимать хиты и запросы статистики.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@DependsOn("hitPartitionManager")
+public class RollupBackfillRunner {
+
+    private final EndpointHitChangeRepository changeRepository;
+    private final EndpointHitRollupRepository rollupRepository;
+    private final RollupProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void run() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Long watermark = rollupRepository.findWatermark();
+            long lastHitId = changeRepository.findLastHitId();
+            if (!properties.isEnabled()) {
+                if (watermark == null) {
+                    rollupRepository.saveWatermark(lastHitId);
+                    log.info("Агрегаты статистики выключены, в них учтены хиты до id={}", lastHitId);
+                }
+                return;
+            }
+
+            if (watermark != null) {
+                log.info("Досчёт агрегатов статистики по хитам с id в ({}, {}]", watermark, lastHitId);
+                rollupRepository.backfill(watermark, lastHitId);
+                rollupRepository.deleteWatermark();
+            } else if (lastHitId > 0 && rollupRepository.isEmpty()) {
+                log.info("Построение агрегатов статистики по существующим хитам");
+                rollupRepository.rebuild();
+            } else {
+                return;
+            }
+            log.info("Агрегаты статистики построены");
+        });
+    }
+}
@@ -0,0 +1,81 @@
+package ru.practicum.stats.service;
+
+import ru.practicum.stats.model.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Разбиение интервала [start, end] на полные интервалы агрегатов и «края» по сырым хитам.
+ *
+ * Середина интервала покрывается сутками, остаток до границ суток — часами, затем минутами,
+ * и только куски короче минуты у краёв читаются из endpoint_hits.
+ */
+public class RollupQueryPlan {
+
+    private final RollupGranularity[] levels;
+    private final List<BucketRange> buckets = new ArrayList<>();
+    private final List<RawRange> rawRanges = new ArrayList<>();
+
+    private RollupQueryPlan(RollupGranularity[] levels) {
+        this.levels = levels;
+    }
+
+    public static RollupQueryPlan of(LocalDateTime start, LocalDateTime end) {
+        return of(start, end, true, RollupGranularity.values());
+    }
+
+    /**
+     * @param levels используемые размеры интервалов, от крупного к мелкому
+     */
+    public static RollupQueryPlan of(LocalDateTime start, LocalDateTime end, boolean endInclusive,
+                                     RollupGranularity... levels) {
+        RollupQueryPlan plan = new RollupQueryPlan(levels);
+        plan.cover(start, end, endInclusive, 0);
+        return plan;
+    }
+
+    public List<BucketRange> getBuckets() {
+        return buckets;
+    }
+
+    public List<RawRange> getRawRanges() {
+        return rawRanges;
+    }
+
+    private void cover(LocalDateTime from, LocalDateTime to, boolean toInclusive, int level) {
+        if (level == levels.length) {
+            rawRanges.add(new RawRange(from, to, toInclusive));
+            return;
+        }
+
+        RollupGranularity granularity = levels[level];
+        LocalDateTime first = granularity.ceil(from);
+        LocalDateTime last = granularity.floor(to);
+        if (!first.isBefore(last)) {
+            cover(from, to, toInclusive, level + 1);
+            return;
+        }
+
+        buckets.add(new BucketRange(granularity, first, last));
+        if (from.isBefore(first)) {
+            cover(from, first, false, level + 1);
+        }
+        if (last.isBefore(to) || toInclusive) {
+            cover(last, to, toInclusive, level + 1);
+        }
+    }
+
+    /**
+     * Агрегаты с bucket_start в [from, to).
+     */
+    public record BucketRange(RollupGranularity granularity, LocalDateTime from, LocalDateTime to) {
+    }
+
+    /**
+     * Сырые хиты с timestamp в [from, to) или [from, to].
+     */
+    public record RawRange(LocalDateTime from, LocalDateTime to, boolean toInclusive) {
+    }
+}
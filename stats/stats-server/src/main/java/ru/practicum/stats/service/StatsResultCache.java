@@ -0,0 +1,205 @@
+package ru.practicum.stats.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.config.StatsCacheProperties;
+import ru.practicum.stats.model.EndpointHit;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Кэш результатов GET /stats с ключом (набор URI, unique, округлённые start и end).
+ *
+ * Новые хиты не сбрасывают неуникальную статистику, а дописываются в закэшированные результаты,
+ * чьи границы их покрывают; уникальная статистика по затронутым URI сбрасывается.
+ * Чтобы хит не был учтён дважды, дописываются только результаты, посчитанные до начала его записи
+ * (по счётчику записей); результаты, чей расчёт мог пересечься с записью, сбрасываются.
+ * Хиты, записанные во время расчёта результата, который попал в кэш уже после их обработки,
+ * появятся в нём не позже чем через ttl: срок результата отсчитывается от его расчёта
+ * и при дописывании хитов не продлевается.
+ * Для поиска затронутых ключей ведётся индекс URI → ключи и отдельный набор ключей без фильтра по URI.
+ * Метрики — стандартные метрики кэша Micrometer с тегом cache=stats.result.
+ */
+@Slf4j
+@Component
+public class StatsResultCache {
+
+    private static final String CACHE_NAME = "stats.result";
+
+    private final StatsCacheProperties properties;
+    private final Cache<Key, Entry> cache;
+    private final AtomicLong writeSequence = new AtomicLong();
+    private final Map<String, Set<Key>> keysByUri = new ConcurrentHashMap<>();
+    private final Set<Key> unfilteredKeys = ConcurrentHashMap.newKeySet();
+
+    public StatsResultCache(StatsCacheProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        if (!properties.isEnabled()) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfter(new SinceLoadExpiry(Duration.ofMillis(properties.getTtlMillis()).toNanos()))
+                .recordStats()
+                // Вызывается синхронно при вытеснении и истечении срока, поэтому индекс не расходится с кэшем
+                .evictionListener((Key key, Entry value, RemovalCause cause) -> unindex(key))
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * Результат для округлённых границ; loader получает округлённые start и end.
+     *
+     * @param uris нормализованные URI или null, если фильтра нет
+     */
+    public List<ViewStatsDto> get(LocalDateTime start, LocalDateTime end, boolean unique, Collection<String> uris,
+                                  BiFunction<LocalDateTime, LocalDateTime, List<ViewStatsDto>> loader) {
+        Key key = new Key(floor(start), ceil(end), unique,
+                uris == null ? null : uris.stream().filter(Objects::nonNull).distinct().sorted().toList());
+        return cache.get(key, k -> {
+            List<ViewStatsDto> stats = loader.apply(k.start(), k.end());
+            index(k);
+            return new Entry(stats, writeSequence.get());
+        }).stats();
+    }
+
+    /**
+     * Вызывается перед записью хитов; возвращает номер записи для onHitsStored.
+     */
+    public long beforeWrite() {
+        return writeSequence.incrementAndGet();
+    }
+
+    /**
+     * Дописывает хиты, зафиксированные записью с номером sequence, в закэшированные результаты.
+     */
+    public void onHitsStored(List<EndpointHit> hits, long sequence) {
+        if (cache == null) {
+            return;
+        }
+        Map<Key, List<EndpointHit>> affected = new HashMap<>();
+        for (EndpointHit hit : hits) {
+            Set<Key> candidates = new HashSet<>(unfilteredKeys);
+            candidates.addAll(keysByUri.getOrDefault(hit.getUri(), Set.of()));
+            for (Key key : candidates) {
+                if (key.covers(hit.getTimestamp())) {
+                    affected.computeIfAbsent(key, k -> new ArrayList<>()).add(hit);
+                }
+            }
+        }
+
+        affected.forEach((key, keyHits) -> {
+            cache.asMap().computeIfPresent(key, (k, entry) -> {
+                if (k.unique() || entry.sequence() >= sequence) {
+                    unindex(k);
+                    return null;
+                }
+                return new Entry(topUp(entry.stats(), keyHits), entry.sequence());
+            });
+        });
+        if (!affected.isEmpty()) {
+            log.debug("Обновлено закэшированных результатов статистики: {}", affected.size());
+        }
+    }
+
+    private List<ViewStatsDto> topUp(List<ViewStatsDto> stats, List<EndpointHit> hits) {
+        Map<List<String>, Long> counts = new LinkedHashMap<>();
+        stats.forEach(stat -> counts.put(List.of(stat.getApp(), stat.getUri()), stat.getHits()));
+        hits.forEach(hit -> counts.merge(List.of(hit.getApp(), hit.getUri()), 1L, Long::sum));
+        return counts.entrySet().stream()
+                .map(entry -> new ViewStatsDto(entry.getKey().get(0), entry.getKey().get(1), entry.getValue()))
+                .sorted(Comparator.comparing(ViewStatsDto::getHits).reversed())
+                .toList();
+    }
+
+    private void index(Key key) {
+        if (key.uris() == null) {
+            unfilteredKeys.add(key);
+        } else {
+            key.uris().forEach(uri -> keysByUri.computeIfAbsent(uri, u -> ConcurrentHashMap.newKeySet()).add(key));
+        }
+    }
+
+    private void unindex(Key key) {
+        if (key.uris() == null) {
+            unfilteredKeys.remove(key);
+            return;
+        }
+        for (String uri : key.uris()) {
+            keysByUri.computeIfPresent(uri, (u, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private LocalDateTime floor(LocalDateTime time) {
+        long bucket = properties.getBucketSeconds();
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(seconds, bucket) * bucket, 0, ZoneOffset.UTC);
+    }
+
+    private LocalDateTime ceil(LocalDateTime time) {
+        LocalDateTime floor = floor(time);
+        return floor.equals(time) ? floor : floor.plusSeconds(properties.getBucketSeconds());
+    }
+
+    private record Entry(List<ViewStatsDto> stats, long sequence) {
+    }
+
+    /**
+     * Срок отсчитывается от расчёта результата: дописывание хитов через computeIfPresent
+     * считается записью, но срок не продлевает.
+     */
+    private record SinceLoadExpiry(long ttlNanos) implements Expiry<Key, Entry> {
+
+        @Override
+        public long expireAfterCreate(Key key, Entry value, long currentTime) {
+            return ttlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(Key key, Entry value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+
+    private record Key(LocalDateTime start, LocalDateTime end, boolean unique, List<String> uris) {
+
+        boolean covers(LocalDateTime timestamp) {
+            return !timestamp.isBefore(start) && !timestamp.isAfter(end);
+        }
+    }
+}
@@ -1,15 +1,21 @@
 package ru.practicum.stats.service;
 
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.dto.ViewChangesDto;
 import ru.practicum.dto.ViewStatsDto;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface StatsService {
 
     void saveHit(EndpointHitDto dto);
 
+    void saveHits(List<EndpointHitDto> dtos);
+
     List<ViewStatsDto> getStats(
             LocalDateTime start,
             LocalDateTime end,
@@ -22,4 +28,56 @@ public interface StatsService {
             boolean unique,
             List<String> uris
     );
-}
\ No newline at end of file
+
+    /**
+     * Статистика за период, передаваемая consumer построчно в порядке убывания хитов.
+     * В памяти держится не больше одной пачки строк независимо от размера результата;
+     * кэш результатов не используется. Соединение с БД занято, пока consumer не обработает все строки.
+     */
+    void streamStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            boolean unique,
+            List<String> uris,
+            Consumer<ViewStatsDto> consumer
+    );
+
+    /**
+     * До limit самых просматриваемых пар (app, uri) за период по убыванию хитов.
+     * Без exact ответ строится по сводкам в памяти, если они покрывают период, и может быть приблизительным;
+     * exact — всегда SQL-запрос с LIMIT.
+     *
+     * @param app       только это приложение; null — все
+     * @param uriPrefix только URI с этим префиксом; null — все
+     */
+    List<ViewStatsDto> getTopStats(
+            LocalDateTime start,
+            LocalDateTime end,
+            int limit,
+            boolean unique,
+            String app,
+            String uriPrefix,
+            boolean exact
+    );
+
+    /**
+     * Хиты каждого URI за его собственный интервал одним запросом к БД.
+     * Результат в порядке ranges; хиты разных приложений по одному URI суммируются.
+     */
+    List<RangeStatsDto> queryStats(List<UriRangeDto> ranges, boolean unique);
+
+    /**
+     * Просмотры за всё время без ограничения по датам.
+     */
+    List<ViewStatsDto> getLifetimeStats(List<String> uris, boolean unique);
+
+    /**
+     * Просмотры за всё время URI, по которым появились хиты с id больше since, и id последнего
+     * учтённого хита как курсор следующего запроса. since = 0 — все URI.
+     * Хит, закоммиченный позже хита с большим id, в окно курсора не попадает, поэтому вызывающему
+     * стоит перекрывать окна; просмотры абсолютные, повторная обработка URI безопасна.
+     *
+     * @param uriPrefix только URI с этим префиксом; null — все
+     */
+    ViewChangesDto getViewChanges(long since, String uriPrefix, boolean unique);
+}
@@ -3,22 +3,56 @@ package ru.practicum.stats.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
 import ru.practicum.dto.EndpointHitDto;
+import ru.practicum.dto.RangeStatsDto;
+import ru.practicum.dto.UriRangeDto;
+import ru.practicum.dto.ViewChangesDto;
 import ru.practicum.dto.ViewStatsDto;
+import ru.practicum.stats.config.RollupProperties;
+import ru.practicum.stats.config.UniqueStatsProperties;
 import ru.practicum.stats.model.EndpointHit;
 import ru.practicum.stats.model.EndpointHitDtoMapper;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.repository.EndpointHitChangeRepository;
+import ru.practicum.stats.repository.EndpointHitRangeRepository;
 import ru.practicum.stats.repository.EndpointHitRepository;
+import ru.practicum.stats.repository.EndpointHitRollupRepository;
+import ru.practicum.stats.repository.EndpointHitTopRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class StatsServiceImpl implements StatsService {
 
+    private static final int STREAM_CHUNK_SIZE = 1000;
+
     private final EndpointHitRepository repository;
+    private final EndpointHitRollupRepository rollupRepository;
+    private final RollupProperties rollupProperties;
+    private final UniqueStatsProperties uniqueProperties;
+    private final UniqueVisitorEstimator uniqueVisitorEstimator;
+    private final HitStore hitStore;
+    private final HitWriter hitWriter;
+    private final EndpointDictionary dictionary;
+    private final StatsResultCache resultCache;
+    private final ViewCounterStore viewCounters;
+    private final TransactionTemplate transactionTemplate;
+    private final TopUriTracker topTracker;
+    private final EndpointHitTopRepository topRepository;
+    private final EndpointHitRangeRepository rangeRepository;
+    private final EndpointHitChangeRepository changeRepository;
 
     @Override
     public void saveHit(EndpointHitDto dto) {
@@ -35,8 +69,23 @@ public class StatsServiceImpl implements StatsService {
         }
 
         EndpointHit hit = EndpointHitDtoMapper.toEntity(dto);
-        EndpointHit saved = repository.save(hit);
-        log.debug("Статистика сохранена с id={}", saved.getId());
+        hitWriter.write(hit);
+    }
+
+    @Override
+    public void saveHits(List<EndpointHitDto> dtos) {
+        log.info("Пакетное сохранение статистики: {} записей", dtos != null ? dtos.size() : 0);
+
+        if (CollectionUtils.isEmpty(dtos)) {
+            return;
+        }
+
+        List<EndpointHit> hits = dtos.stream()
+                .filter(Objects::nonNull)
+                .map(EndpointHitDtoMapper::toEntity)
+                .toList();
+        hitStore.store(hits);
+        log.debug("Сохранено {} записей статистики", hits.size());
     }
 
     @Override
@@ -45,14 +94,7 @@ public class StatsServiceImpl implements StatsService {
             LocalDateTime end,
             boolean unique
     ) {
-        log.info("Запрос статистики: start={}, end={}, unique={}", start, end, unique);
-
-        List<ViewStatsDto> stats = unique
-                ? repository.findUniqueStats(start, end)
-                : repository.findStats(start, end);
-
-        log.debug("Найдено {} записей статистики", stats.size());
-        return stats;
+        return getStats(start, end, unique, null);
     }
 
     @Override
@@ -60,42 +102,10 @@ public class StatsServiceImpl implements StatsService {
         log.info("Запрос статистики с фильтрацией по URI: start={}, end={}, unique={}, uris={}",
                 start, end, unique, uris);
 
-        boolean filterByUris = !CollectionUtils.isEmpty(uris);
-        List<String> normalizedUris = uris;
-
-        // Нормализуем значения uris: если передано просто число (например "1"),
-        // то считаем, что это id события и преобразуем в "/events/{id}" для совместимости с тестами.
-        if (filterByUris) {
-            normalizedUris = uris.stream()
-                    .map(u -> {
-                        if (u == null || u.isBlank()) return u;
-                        String trimmed = u.trim();
-                        if (trimmed.startsWith("/")) {
-                            log.debug("URI уже в нормализованном виде: {}", trimmed);
-                            return trimmed; // уже путь
-                        }
-                        if (trimmed.chars().allMatch(Character::isDigit)) {
-                            String normalized = "/events/" + trimmed;
-                            log.debug("Нормализован URI из числа {} в {}", trimmed, normalized);
-                            return normalized;
-                        }
-                        log.debug("URI оставлен без изменений: {}", trimmed);
-                        return trimmed;
-                    })
-                    .toList();
-            log.debug("Нормализованные URI: {}", normalizedUris);
-        }
-
-        List<ViewStatsDto> stats;
-        if (unique) {
-            stats = filterByUris
-                    ? repository.findUniqueStatsByUris(start, end, normalizedUris)
-                    : repository.findUniqueStats(start, end);
-        } else {
-            stats = filterByUris
-                    ? repository.findStatsByUris(start, end, normalizedUris)
-                    : repository.findStats(start, end);
-        }
+        List<String> uriFilter = normalizeUris(uris);
+        List<ViewStatsDto> stats = resultCache.isEnabled()
+                ? resultCache.get(start, end, unique, uriFilter, (from, to) -> computeStats(from, to, unique, uriFilter))
+                : computeStats(start, end, unique, uriFilter);
 
         log.info("Найдено {} записей статистики", stats.size());
 
@@ -106,4 +116,251 @@ public class StatsServiceImpl implements StatsService {
 
         return stats;
     }
-}
\ No newline at end of file
+
+    @Override
+    public void streamStats(LocalDateTime start, LocalDateTime end, boolean unique, List<String> uris,
+                            Consumer<ViewStatsDto> consumer) {
+        log.info("Потоковый запрос статистики: start={}, end={}, unique={}, uris={}", start, end, unique, uris);
+
+        List<String> uriFilter = normalizeUris(uris);
+        List<Integer> uriIds = null;
+        if (uriFilter != null) {
+            uriIds = List.copyOf(dictionary.findUriIds(uriFilter).values());
+            if (uriIds.isEmpty()) {
+                return;
+            }
+        }
+        List<Integer> ids = uriIds;
+
+        // Ключи раскодируются пачками, чтобы не обращаться к справочнику на каждую строку
+        List<HitCount> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        long[] streamed = {0};
+        Consumer<HitCount> collector = count -> {
+            chunk.add(count);
+            if (chunk.size() == STREAM_CHUNK_SIZE) {
+                streamed[0] += emit(chunk, consumer);
+            }
+        };
+        transactionTemplate.executeWithoutResult(status -> {
+            if (unique && isApproximate(start, end)) {
+                // Оценка строится по скетчам в памяти, строки результата уже посчитаны
+                uniqueVisitorEstimator.estimate(start, end, ids).forEach(collector);
+            } else if (unique) {
+                try (Stream<EndpointHitRepository.StatsRow> rows = ids != null
+                        ? repository.streamUniqueStatsByUris(start, end, ids)
+                        : repository.streamUniqueStats(start, end)) {
+                    rows.map(this::toCount).forEach(collector);
+                }
+            } else if (rollupProperties.isEnabled()) {
+                rollupRepository.forEachStats(RollupQueryPlan.of(start, end), ids, collector);
+            } else {
+                try (Stream<EndpointHitRepository.StatsRow> rows = ids != null
+                        ? repository.streamStatsByUris(start, end, ids)
+                        : repository.streamStats(start, end)) {
+                    rows.map(this::toCount).forEach(collector);
+                }
+            }
+            streamed[0] += emit(chunk, consumer);
+        });
+        log.info("Передано {} записей статистики", streamed[0]);
+    }
+
+    @Override
+    public List<ViewStatsDto> getTopStats(LocalDateTime start, LocalDateTime end, int limit, boolean unique,
+                                          String app, String uriPrefix, boolean exact) {
+        log.info("Запрос самых просматриваемых URI: start={}, end={}, limit={}, unique={}, app={}, uriPrefix={}, exact={}",
+                start, end, limit, unique, app, uriPrefix, exact);
+
+        String appFilter = StringUtils.hasText(app) ? app.trim() : null;
+        String prefixFilter = StringUtils.hasText(uriPrefix) ? uriPrefix.trim() : null;
+        if (!exact) {
+            List<HitCount> approximate = null;
+            if (unique && isApproximate(start, end)) {
+                approximate = uniqueVisitorEstimator.estimate(start, end, null).stream()
+                        .sorted(Comparator.comparingLong(HitCount::hits).reversed())
+                        .toList();
+            } else if (!unique && topTracker.isEnabled()) {
+                approximate = topTracker.find(start, end);
+            }
+            if (approximate != null) {
+                return top(approximate, appFilter, prefixFilter, limit);
+            }
+        }
+        return dictionary.decode(topRepository.findTop(start, end, unique, appFilter, prefixFilter, limit));
+    }
+
+    @Override
+    public List<RangeStatsDto> queryStats(List<UriRangeDto> ranges, boolean unique) {
+        log.info("Запрос статистики по {} интервалам URI: unique={}", ranges.size(), unique);
+
+        List<String> uris = normalizeUris(ranges.stream().map(UriRangeDto::getUri).toList());
+        Map<String, Integer> uriIds = uris == null ? Map.of() : dictionary.findUriIds(uris);
+
+        // URI, которых нет в справочнике, ещё не просматривались и в запрос не попадают
+        List<EndpointHitRangeRepository.Range> known = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        for (int i = 0; i < ranges.size(); i++) {
+            Integer uriId = uriIds.get(uris.get(i));
+            if (uriId != null) {
+                known.add(new EndpointHitRangeRepository.Range(uriId, ranges.get(i).getStart(), ranges.get(i).getEnd()));
+                positions.add(i);
+            }
+        }
+        long[] counts = rangeRepository.countByRanges(known, unique);
+
+        long[] hits = new long[ranges.size()];
+        for (int i = 0; i < positions.size(); i++) {
+            hits[positions.get(i)] = counts[i];
+        }
+        List<RangeStatsDto> result = new ArrayList<>(ranges.size());
+        for (int i = 0; i < ranges.size(); i++) {
+            UriRangeDto range = ranges.get(i);
+            result.add(new RangeStatsDto(range.getUri(), range.getStart(), range.getEnd(), hits[i]));
+        }
+        return result;
+    }
+
+    @Override
+    public List<ViewStatsDto> getLifetimeStats(List<String> uris, boolean unique) {
+        log.info("Запрос статистики за всё время: unique={}, uris={}", unique, uris);
+
+        if (!viewCounters.isEnabled()) {
+            return getStats(LocalDateTime.of(1970, 1, 1, 0, 0), LocalDateTime.now(), unique, uris);
+        }
+
+        List<String> uriFilter = normalizeUris(uris);
+        List<Integer> uriIds = null;
+        if (uriFilter != null) {
+            uriIds = List.copyOf(dictionary.findUriIds(uriFilter).values());
+            if (uriIds.isEmpty()) {
+                return List.of();
+            }
+        }
+        List<ViewStatsDto> stats = dictionary.decode(viewCounters.find(uriIds, unique));
+        log.info("Найдено {} записей статистики за всё время", stats.size());
+        return stats;
+    }
+
+    @Override
+    public ViewChangesDto getViewChanges(long since, String uriPrefix, boolean unique) {
+        long cursor = changeRepository.findLastHitId();
+        if (since <= 0) {
+            // Все URI: один запрос за всё время вместо списка из всех URI
+            List<ViewStatsDto> stats = getLifetimeStats(null, unique).stream()
+                    .filter(stat -> uriPrefix == null || stat.getUri().startsWith(uriPrefix))
+                    .toList();
+            return new ViewChangesDto(cursor, stats);
+        }
+        if (cursor <= since) {
+            return new ViewChangesDto(since, List.of());
+        }
+
+        List<String> changed = changeRepository.findChangedUris(since, cursor, uriPrefix);
+        List<ViewStatsDto> stats = new ArrayList<>(changed.size());
+        for (int from = 0; from < changed.size(); from += STREAM_CHUNK_SIZE) {
+            stats.addAll(getLifetimeStats(changed.subList(from, Math.min(changed.size(), from + STREAM_CHUNK_SIZE)), unique));
+        }
+        log.info("Изменились просмотры {} URI после хита {}, курсор {}", changed.size(), since, cursor);
+        return new ViewChangesDto(cursor, stats);
+    }
+
+    /**
+     * Нормализует значения uris: если передано просто число (например "1"),
+     * то считаем, что это id события и преобразуем в "/events/{id}" для совместимости с тестами.
+     * Пустой список означает отсутствие фильтра (null).
+     */
+    private List<String> normalizeUris(List<String> uris) {
+        if (CollectionUtils.isEmpty(uris)) {
+            return null;
+        }
+        List<String> normalizedUris = uris.stream()
+                .map(u -> {
+                    if (u == null || u.isBlank()) return u;
+                    String trimmed = u.trim();
+                    if (trimmed.startsWith("/")) {
+                        log.debug("URI уже в нормализованном виде: {}", trimmed);
+                        return trimmed; // уже путь
+                    }
+                    if (trimmed.chars().allMatch(Character::isDigit)) {
+                        String normalized = "/events/" + trimmed;
+                        log.debug("Нормализован URI из числа {} в {}", trimmed, normalized);
+                        return normalized;
+                    }
+                    log.debug("URI оставлен без изменений: {}", trimmed);
+                    return trimmed;
+                })
+                .toList();
+        log.debug("Нормализованные URI: {}", normalizedUris);
+        return normalizedUris;
+    }
+
+    private List<ViewStatsDto> computeStats(LocalDateTime start, LocalDateTime end, boolean unique, List<String> uris) {
+        List<Integer> uriIds = null;
+        if (uris != null) {
+            uriIds = List.copyOf(dictionary.findUriIds(uris).values());
+            if (uriIds.isEmpty()) {
+                log.info("Ни один из запрошенных URI ещё не встречался");
+                return List.of();
+            }
+        }
+
+        List<HitCount> counts;
+        if (unique && isApproximate(start, end)) {
+            counts = uniqueVisitorEstimator.estimate(start, end, uriIds);
+        } else if (unique) {
+            counts = toCounts(uriIds != null
+                    ? repository.findUniqueStatsByUris(start, end, uriIds)
+                    : repository.findUniqueStats(start, end));
+        } else if (rollupProperties.isEnabled()) {
+            counts = rollupRepository.findStats(RollupQueryPlan.of(start, end), uriIds);
+        } else {
+            counts = toCounts(uriIds != null
+                    ? repository.findStatsByUris(start, end, uriIds)
+                    : repository.findStats(start, end));
+        }
+        return dictionary.decode(counts);
+    }
+
+    private boolean isApproximate(LocalDateTime start, LocalDateTime end) {
+        return uniqueProperties.getMode() == UniqueStatsProperties.UniqueMode.APPROXIMATE
+                && uniqueVisitorEstimator.covers(start, end);
+    }
+
+    private List<HitCount> toCounts(List<EndpointHitRepository.StatsRow> rows) {
+        return rows.stream()
+                .map(this::toCount)
+                .toList();
+    }
+
+    private HitCount toCount(EndpointHitRepository.StatsRow row) {
+        return new HitCount(row.getAppId(), row.getUriId(), row.getHits());
+    }
+
+    /**
+     * Первые limit строк, подходящих под фильтр; counts отсортированы по убыванию хитов
+     * и раскодируются пачками, пока результат не наберётся.
+     */
+    private List<ViewStatsDto> top(List<HitCount> counts, String app, String uriPrefix, int limit) {
+        List<ViewStatsDto> result = new ArrayList<>(limit);
+        for (int from = 0; from < counts.size() && result.size() < limit; from += STREAM_CHUNK_SIZE) {
+            List<HitCount> chunk = counts.subList(from, Math.min(counts.size(), from + STREAM_CHUNK_SIZE));
+            for (ViewStatsDto stat : dictionary.decode(chunk)) {
+                if ((app == null || app.equals(stat.getApp()))
+                        && (uriPrefix == null || stat.getUri().startsWith(uriPrefix))) {
+                    result.add(stat);
+                    if (result.size() == limit) {
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private int emit(List<HitCount> chunk, Consumer<ViewStatsDto> consumer) {
+        int size = chunk.size();
+        dictionary.decode(chunk).forEach(consumer);
+        chunk.clear();
+        return size;
+    }
+}
@@ -0,0 +1,114 @@
+package ru.practicum.stats.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.config.TopStatsProperties;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.SpaceSaving;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Самые просматриваемые пары (app_id, uri_id) по сводкам Space-Saving за интервалы bucket-minutes.
+ *
+ * Сводки обновляются после записи хитов; запрос складывает сводки интервалов, пересекающихся
+ * с [start, end], поэтому границы расширяются до целых интервалов, а счётчики могут быть
+ * завышены на погрешность Space-Saving. Интервалы раньше запуска сервиса и старше retention-hours
+ * не покрыты: для них find возвращает null. Учитываются только хиты, записанные этим экземпляром.
+ */
+@Slf4j
+@Component
+public class TopUriTracker {
+
+    private final boolean enabled;
+    private final long bucketSeconds;
+    private final int capacity;
+    private final long retentionSeconds;
+    // Первый интервал, все хиты которого прошли через этот экземпляр
+    private final long trackedSince;
+
+    private final NavigableMap<Long, SpaceSaving> buckets = new ConcurrentSkipListMap<>();
+
+    public TopUriTracker(TopStatsProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.bucketSeconds = TimeUnit.MINUTES.toSeconds(properties.getBucketMinutes());
+        this.capacity = properties.getCapacity();
+        this.retentionSeconds = TimeUnit.HOURS.toSeconds(properties.getRetentionHours());
+        this.trackedSince = floor(LocalDateTime.now()) + bucketSeconds;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void onHitsStored(List<EndpointHit> hits) {
+        if (!enabled) {
+            return;
+        }
+        long oldest = oldestBucket();
+        // Хиты пачки сначала суммируются, чтобы брать блокировку сводки по разу на ключ
+        Map<Long, Map<Long, Long>> deltas = new HashMap<>();
+        for (EndpointHit hit : hits) {
+            long bucket = floor(hit.getTimestamp());
+            if (bucket >= oldest) {
+                deltas.computeIfAbsent(bucket, b -> new HashMap<>()).merge(key(hit.getAppId(), hit.getUriId()), 1L, Long::sum);
+            }
+        }
+        deltas.forEach((bucket, counts) -> {
+            SpaceSaving summary = buckets.computeIfAbsent(bucket, b -> new SpaceSaving(capacity));
+            counts.forEach(summary::add);
+        });
+    }
+
+    /**
+     * Приблизительные счётчики за интервалы, покрывающие [start, end], по убыванию;
+     * null, если часть периода сводками не покрыта.
+     */
+    public List<HitCount> find(LocalDateTime start, LocalDateTime end) {
+        long from = floor(start);
+        if (from < trackedSince || from < oldestBucket()) {
+            return null;
+        }
+        Map<Long, Long> merged = new HashMap<>();
+        buckets.subMap(from, true, floor(end), true).values()
+                .forEach(summary -> summary.forEach((key, count, error) -> merged.merge(key, count, Long::sum)));
+        return merged.entrySet().stream()
+                .map(entry -> new HitCount((int) (entry.getKey() >>> 32), (int) (long) entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(HitCount::hits).reversed())
+                .toList();
+    }
+
+    @Scheduled(fixedDelayString = "${stats.top.bucket-minutes:10}", timeUnit = TimeUnit.MINUTES)
+    public void evict() {
+        if (!enabled) {
+            return;
+        }
+        Map<Long, SpaceSaving> expired = buckets.headMap(oldestBucket());
+        if (!expired.isEmpty()) {
+            log.debug("Удалено сводок самых просматриваемых URI: {}", expired.size());
+            expired.clear();
+        }
+    }
+
+    private long oldestBucket() {
+        return floor(LocalDateTime.now().minusSeconds(retentionSeconds));
+    }
+
+    private long floor(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), bucketSeconds) * bucketSeconds;
+    }
+
+    private static long key(int appId, int uriId) {
+        return (long) appId << 32 | (uriId & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,186 @@
+package ru.practicum.stats.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.config.UniqueStatsProperties;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.HyperLogLog;
+import ru.practicum.stats.model.RollupGranularity;
+import ru.practicum.stats.repository.EndpointHitSketchRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Приблизительный подсчёт уникальных IP по (app_id, uri_id) слиянием скетчей HyperLogLog.
+ *
+ * Скетчи строятся лениво и только для закрытых часов и суток; текущий час и неполные края
+ * интервала добавляются в скетч напрямую из сырых хитов. Начало интервала сдвигается к суткам
+ * первого хранимого хита, а интервалы длиннее maxApproximateDays оценкой не считаются.
+ * Построение интервала и сброс его скетчей опоздавшими хитами идут под одной advisory-блокировкой.
+ */
+@Slf4j
+@Component
+public class UniqueVisitorEstimator {
+
+    private static final RollupGranularity[] LEVELS = {RollupGranularity.DAY, RollupGranularity.HOUR};
+
+    private final EndpointHitSketchRepository sketchRepository;
+    private final TransactionTemplate buildTransaction;
+    private final int precision;
+    private final long maxDays;
+
+    public UniqueVisitorEstimator(EndpointHitSketchRepository sketchRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  UniqueStatsProperties properties) {
+        this.sketchRepository = sketchRepository;
+        // Блокировка интервала не должна держаться до конца внешней транзакции запроса
+        this.buildTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.buildTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.precision = HyperLogLog.precisionFor(properties.getRelativeError());
+        this.maxDays = properties.getMaxApproximateDays();
+    }
+
+    /**
+     * true, если интервал можно оценить по скетчам; иначе уникальные IP считаются точно.
+     */
+    public boolean covers(LocalDateTime start, LocalDateTime end) {
+        LocalDateTime from = clampStart(start);
+        return from == null || ChronoUnit.DAYS.between(from, end) <= maxDays;
+    }
+
+    public List<HitCount> estimate(LocalDateTime start, LocalDateTime end, Collection<Integer> uriIds) {
+        // Скетчи суток до первого хита были бы пустыми, но строились бы по одному запросу на сутки
+        start = clampStart(start);
+        if (start == null || !start.isBefore(end)) {
+            return List.of();
+        }
+        LocalDateTime closed = RollupGranularity.HOUR.floor(LocalDateTime.now());
+        List<RollupQueryPlan.BucketRange> buckets = new ArrayList<>();
+        List<RollupQueryPlan.RawRange> rawRanges = new ArrayList<>();
+
+        if (!start.isBefore(end.isBefore(closed) ? end : closed)) {
+            rawRanges.add(new RollupQueryPlan.RawRange(start, end, true));
+        } else if (end.isBefore(closed)) {
+            RollupQueryPlan plan = RollupQueryPlan.of(start, end, true, LEVELS);
+            buckets.addAll(plan.getBuckets());
+            rawRanges.addAll(plan.getRawRanges());
+        } else {
+            RollupQueryPlan plan = RollupQueryPlan.of(start, closed, false, LEVELS);
+            buckets.addAll(plan.getBuckets());
+            rawRanges.addAll(plan.getRawRanges());
+            rawRanges.add(new RollupQueryPlan.RawRange(closed, end, true));
+        }
+
+        Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+        for (RollupQueryPlan.BucketRange range : buckets) {
+            ensureBuilt(range);
+            sketchRepository.forEachSketch(range.granularity(), range.from(), range.to(), uriIds,
+                    (appId, uriId, bytes) -> sketchFor(sketches, appId, uriId).merge(HyperLogLog.fromBytes(bytes)));
+        }
+        if (!rawRanges.isEmpty()) {
+            sketchRepository.forEachVisitor(rawRanges, uriIds,
+                    (appId, uriId, ip) -> sketchFor(sketches, appId, uriId).add(ip));
+        }
+
+        return sketches.entrySet().stream()
+                .map(entry -> new HitCount(entry.getKey().appId(), entry.getKey().uriId(), entry.getValue().estimate()))
+                .sorted(Comparator.comparingLong(HitCount::hits).reversed())
+                .toList();
+    }
+
+    /**
+     * Сбрасывает скетчи закрытых интервалов, в которые попали опоздавшие хиты.
+     * Вызывается в транзакции записи хитов: блокировки интервалов держатся до её завершения.
+     */
+    public void onHitsStored(List<EndpointHit> hits) {
+        LocalDateTime closed = RollupGranularity.HOUR.floor(LocalDateTime.now());
+        Set<LocalDateTime> hours = new TreeSet<>();
+        for (EndpointHit hit : hits) {
+            if (hit.getTimestamp().isBefore(closed)) {
+                hours.add(RollupGranularity.HOUR.floor(hit.getTimestamp()));
+            }
+        }
+        if (hours.isEmpty()) {
+            return;
+        }
+
+        Set<LocalDateTime> days = new TreeSet<>();
+        // Блокировки берутся в одном порядке: часы, затем сутки, каждые по возрастанию
+        for (LocalDateTime hour : hours) {
+            sketchRepository.lockBucket(RollupGranularity.HOUR, hour);
+            sketchRepository.deleteBucket(RollupGranularity.HOUR, hour);
+            days.add(RollupGranularity.DAY.floor(hour));
+        }
+        for (LocalDateTime day : days) {
+            sketchRepository.lockBucket(RollupGranularity.DAY, day);
+            sketchRepository.deleteBucket(RollupGranularity.DAY, day);
+        }
+        log.debug("Сброшены скетчи уникальных посещений: {} часов, {} суток", hours.size(), days.size());
+    }
+
+    private void ensureBuilt(RollupQueryPlan.BucketRange range) {
+        RollupGranularity granularity = range.granularity();
+        Set<LocalDateTime> built = sketchRepository.findBuiltBuckets(granularity, range.from(), range.to(), precision);
+        for (LocalDateTime bucket = range.from(); bucket.isBefore(range.to()); bucket = granularity.next(bucket)) {
+            if (!built.contains(bucket)) {
+                build(granularity, bucket);
+            }
+        }
+    }
+
+    /**
+     * Строит скетчи интервала в отдельной транзакции под блокировкой интервала и заново проверяет,
+     * не построил ли его другой запрос, пока блокировка ожидалась.
+     */
+    private void build(RollupGranularity granularity, LocalDateTime bucketStart) {
+        buildTransaction.executeWithoutResult(status -> {
+            sketchRepository.lockBucket(granularity, bucketStart);
+            LocalDateTime next = granularity.next(bucketStart);
+            if (!sketchRepository.findBuiltBuckets(granularity, bucketStart, next, precision).isEmpty()) {
+                return;
+            }
+
+            Map<AppUri, HyperLogLog> sketches = new HashMap<>();
+            List<RollupQueryPlan.RawRange> range = List.of(new RollupQueryPlan.RawRange(bucketStart, next, false));
+            sketchRepository.forEachVisitor(range, null, (appId, uriId, ip) -> sketchFor(sketches, appId, uriId).add(ip));
+
+            List<EndpointHitSketchRepository.SketchRow> rows = sketches.entrySet().stream()
+                    .map(entry -> new EndpointHitSketchRepository.SketchRow(
+                            entry.getKey().appId(), entry.getKey().uriId(), entry.getValue().toBytes()))
+                    .toList();
+            sketchRepository.replaceBucket(granularity, bucketStart, precision, rows);
+            log.debug("Построены скетчи {} {}: {} URI", granularity, bucketStart, rows.size());
+        });
+    }
+
+    /**
+     * Начало интервала не раньше суток первого хранимого хита; null, если хитов нет.
+     */
+    private LocalDateTime clampStart(LocalDateTime start) {
+        LocalDateTime first = sketchRepository.findFirstHitTime();
+        if (first == null) {
+            return null;
+        }
+        LocalDateTime firstDay = RollupGranularity.DAY.floor(first);
+        return start.isBefore(firstDay) ? firstDay : start;
+    }
+
+    private HyperLogLog sketchFor(Map<AppUri, HyperLogLog> sketches, int appId, int uriId) {
+        return sketches.computeIfAbsent(new AppUri(appId, uriId), key -> new HyperLogLog(precision));
+    }
+
+    private record AppUri(int appId, int uriId) {
+    }
+}
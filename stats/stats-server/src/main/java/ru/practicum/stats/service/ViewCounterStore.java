@@ -0,0 +1,181 @@
+package ru.practicum.stats.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.stats.config.ViewCounterProperties;
+import ru.practicum.stats.model.EndpointHit;
+import ru.practicum.stats.model.HitCount;
+import ru.practicum.stats.model.HyperLogLog;
+import ru.practicum.stats.model.VisitorSet;
+import ru.practicum.stats.repository.ViewCounterRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Счётчики просмотров за всё время по (app_id, uri_id): число хитов и множество уникальных IP.
+ *
+ * Счётчики обновляются при записи хитов и читаются без обращения к БД. Раз в
+ * checkpoint-interval-millis изменённые счётчики сохраняются в endpoint_counters вместе с id
+ * последнего учтённого хита; при старте снимок загружается, а более поздние хиты досчитываются.
+ *
+ * Запись хитов держит блокировку чтения на время транзакции, снимок — блокировку записи,
+ * поэтому в снимок попадают ровно закоммиченные хиты с id не больше сохранённого.
+ * Счётчики учитывают только хиты, записанные этим экземпляром: при нескольких экземплярах
+ * stats-server их нужно выключить.
+ */
+@Slf4j
+@Component
+@DependsOn("hitPartitionManager")
+public class ViewCounterStore {
+
+    private final ViewCounterRepository repository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int exactVisitorsLimit;
+    private final int precision;
+
+    private final Map<Integer, Map<Integer, Counter>> counters = new ConcurrentHashMap<>();
+    private final Set<AppUri> dirty = ConcurrentHashMap.newKeySet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ViewCounterStore(ViewCounterRepository repository,
+                            TransactionTemplate transactionTemplate,
+                            ViewCounterProperties properties) {
+        this.repository = repository;
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = properties.isEnabled();
+        this.exactVisitorsLimit = properties.getExactVisitorsLimit();
+        this.precision = HyperLogLog.precisionFor(properties.getRelativeError());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        long watermark = repository.findWatermark();
+        repository.forEachCounter((appId, uriId, hits, visitors) -> {
+            Counter counter = new Counter(VisitorSet.fromBytes(visitors, exactVisitorsLimit, precision));
+            counter.hits.add(hits);
+            counters.computeIfAbsent(uriId, key -> new ConcurrentHashMap<>()).put(appId, counter);
+        });
+
+        // Курсор PostgreSQL с fetch size работает только внутри транзакции
+        long[] replayed = {0};
+        transactionTemplate.executeWithoutResult(status -> repository.forEachHitAfter(watermark, (appId, uriId, ip) -> {
+            apply(appId, uriId, ip);
+            replayed[0]++;
+        }));
+        log.info("Загружены счётчики просмотров: {} URI, досчитано хитов после снимка: {}", counters.size(), replayed[0]);
+        checkpoint();
+    }
+
+    /**
+     * Выполняет запись хитов и учитывает их в счётчиках после её успешного завершения.
+     */
+    public void ingest(List<EndpointHit> hits, Runnable persist) {
+        if (!enabled) {
+            persist.run();
+            return;
+        }
+        lock.readLock().lock();
+        try {
+            persist.run();
+            hits.forEach(hit -> apply(hit.getAppId(), hit.getUriId(), hit.getIp()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Счётчики запрошенных URI (или всех, если uriIds == null) в порядке убывания.
+     */
+    public List<HitCount> find(Collection<Integer> uriIds, boolean unique) {
+        Collection<Integer> keys = uriIds != null ? uriIds : counters.keySet();
+        List<HitCount> result = new ArrayList<>();
+        for (Integer uriId : keys) {
+            Map<Integer, Counter> byApp = counters.get(uriId);
+            if (byApp == null) {
+                continue;
+            }
+            byApp.forEach((appId, counter) -> result.add(new HitCount(appId, uriId,
+                    unique ? counter.visitors.count() : counter.hits.sum())));
+        }
+        result.sort(Comparator.comparingLong(HitCount::hits).reversed());
+        return result;
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${stats.counters.checkpoint-interval-millis:60000}",
+            initialDelayString = "${stats.counters.checkpoint-interval-millis:60000}")
+    public synchronized void checkpoint() {
+        if (!enabled) {
+            return;
+        }
+        List<ViewCounterRepository.CounterRow> rows = new ArrayList<>();
+        long lastHitId;
+        lock.writeLock().lock();
+        try {
+            lastHitId = repository.findLastHitId();
+            for (AppUri key : dirty) {
+                Counter counter = counters.get(key.uriId()).get(key.appId());
+                rows.add(new ViewCounterRepository.CounterRow(
+                        key.appId(), key.uriId(), counter.hits.sum(), counter.visitors.toBytes()));
+            }
+            dirty.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                repository.saveAll(rows);
+                repository.saveWatermark(lastHitId);
+            });
+            log.debug("Сохранён снимок счётчиков просмотров: {} URI, последний хит {}", rows.size(), lastHitId);
+        } catch (RuntimeException e) {
+            rows.forEach(row -> dirty.add(new AppUri(row.appId(), row.uriId())));
+            log.error("Не удалось сохранить снимок счётчиков просмотров", e);
+        }
+    }
+
+    private void apply(int appId, int uriId, byte[] ip) {
+        Counter counter = counters.computeIfAbsent(uriId, key -> new ConcurrentHashMap<>())
+                .computeIfAbsent(appId, key -> new Counter(new VisitorSet(exactVisitorsLimit, precision)));
+        counter.hits.increment();
+        if (ip != null) {
+            counter.visitors.add(ip);
+        }
+        dirty.add(new AppUri(appId, uriId));
+    }
+
+    private static final class Counter {
+        private final LongAdder hits = new LongAdder();
+        private final VisitorSet visitors;
+
+        private Counter(VisitorSet visitors) {
+            this.visitors = visitors;
+        }
+    }
+
+    private record AppUri(int appId, int uriId) {
+    }
+}
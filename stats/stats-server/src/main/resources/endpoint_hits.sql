@@ -0,0 +1,24 @@
+-- Сырые хиты, секционированные по времени. Скрипт выполняет HitPartitionManager:
+-- при первом старте и при переносе исходной несекционированной таблицы.
+CREATE SEQUENCE IF NOT EXISTS endpoint_hits_id_seq;
+
+CREATE TABLE IF NOT EXISTS endpoint_hits (
+    id BIGINT NOT NULL DEFAULT nextval('endpoint_hits_id_seq'),
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    -- IPv4 — 4 байта, IPv6 — 16 байт (см. IpAddress)
+    ip BYTEA NOT NULL,
+    timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    PRIMARY KEY (id, timestamp)
+) PARTITION BY RANGE (timestamp);
+
+ALTER SEQUENCE endpoint_hits_id_seq OWNED BY endpoint_hits.id;
+
+-- Покрывающие индексы: все четыре запроса EndpointHitRepository выполняются index-only scan.
+-- Диапазон по времени без фильтра по URI
+CREATE INDEX IF NOT EXISTS idx_endpoint_hits_timestamp_cover
+    ON endpoint_hits (timestamp) INCLUDE (app_id, uri_id, ip);
+
+-- uri_id IN (...) AND timestamp BETWEEN ...
+CREATE INDEX IF NOT EXISTS idx_endpoint_hits_uri_timestamp
+    ON endpoint_hits (uri_id, timestamp) INCLUDE (app_id, ip);
@@ -1,16 +1,63 @@
-CREATE TABLE IF NOT EXISTS endpoint_hits (
-    id BIGSERIAL PRIMARY KEY,
-    app VARCHAR(255) NOT NULL,
-    uri VARCHAR(1024) NOT NULL,
-    ip VARCHAR(64) NOT NULL,
-    timestamp TIMESTAMP WITHOUT TIME ZONE NOT NULL
+-- Таблица endpoint_hits описана в endpoint_hits.sql: её создаёт и секционирует HitPartitionManager.
+
+-- Справочники приложений и URI; в хитах, агрегатах и скетчах хранятся их ключи
+CREATE TABLE IF NOT EXISTS endpoint_apps (
+    id SERIAL PRIMARY KEY,
+    name VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_uris (
+    id SERIAL PRIMARY KEY,
+    name VARCHAR(1024) NOT NULL UNIQUE
 );
 
-CREATE INDEX IF NOT EXISTS idx_endpoint_hits_timestamp
-    ON endpoint_hits (timestamp);
+-- Предагрегированные счётчики хитов по минутам (MINUTE), часам (HOUR) и суткам (DAY)
+CREATE TABLE IF NOT EXISTS endpoint_rollups (
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    hits BIGINT NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id)
+);
 
-CREATE INDEX IF NOT EXISTS idx_endpoint_hits_app_uri
-    ON endpoint_hits (app, uri);
+CREATE INDEX IF NOT EXISTS idx_endpoint_rollups_uri
+    ON endpoint_rollups (uri_id, granularity, bucket_start);
 
-CREATE INDEX IF NOT EXISTS idx_endpoint_hits_ip
-    ON endpoint_hits (ip);
\ No newline at end of file
+-- Есть, пока агрегаты отстают: хиты с id больше last_hit_id записаны при выключенных агрегатах
+CREATE TABLE IF NOT EXISTS endpoint_rollup_watermark (
+    id SMALLINT PRIMARY KEY,
+    last_hit_id BIGINT NOT NULL
+);
+
+-- Скетчи HyperLogLog уникальных IP по закрытым часам (HOUR) и суткам (DAY)
+CREATE TABLE IF NOT EXISTS endpoint_sketches (
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    sketch BYTEA NOT NULL,
+    PRIMARY KEY (granularity, bucket_start, app_id, uri_id)
+);
+
+-- Интервалы, для которых скетчи построены, и точность, с которой они построены
+CREATE TABLE IF NOT EXISTS endpoint_sketch_buckets (
+    granularity VARCHAR(8) NOT NULL,
+    bucket_start TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    sketch_precision SMALLINT NOT NULL,
+    PRIMARY KEY (granularity, bucket_start)
+);
+
+-- Снимки счётчиков просмотров за всё время и id последнего учтённого в них хита
+CREATE TABLE IF NOT EXISTS endpoint_counters (
+    app_id INTEGER NOT NULL,
+    uri_id INTEGER NOT NULL,
+    hits BIGINT NOT NULL,
+    visitors BYTEA NOT NULL,
+    PRIMARY KEY (app_id, uri_id)
+);
+
+CREATE TABLE IF NOT EXISTS endpoint_counter_watermark (
+    id SMALLINT PRIMARY KEY,
+    last_hit_id BIGINT NOT NULL
+);